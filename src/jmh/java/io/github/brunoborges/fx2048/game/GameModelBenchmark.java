@@ -0,0 +1,88 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hot paths of {@link GameModel} on realistic boards of every grid size.
+ * <p>
+ * Each invocation restores the next sampled board before the measured call,
+ * so {@link #restoreSnapshot()} is the baseline to subtract from the others.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameModelBenchmark {
+
+    static final long SEED = 2048;
+    static final int BOARDS = 256;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Param({ "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16" })
+    int gridSize;
+
+    private BoardState[] boards;
+    private GameModel model;
+    private int step;
+
+    @Setup
+    public void setUp() {
+        boards = RealisticBoards.sample(gridSize, SEED, BOARDS);
+        model = new GameModel(new GridOperator(gridSize), SpawnStream.seeded(SEED));
+    }
+
+    @Benchmark
+    public GameModel restoreSnapshot() {
+        nextBoard();
+        return model;
+    }
+
+    @Benchmark
+    public GameModel.MoveResult move() {
+        return model.move(nextBoard());
+    }
+
+    @Benchmark
+    public int play() {
+        return model.play(nextBoard());
+    }
+
+    @Benchmark
+    public Optional<GameModel.TileState> addRandomTile() {
+        nextBoard();
+        return model.addRandomTile();
+    }
+
+    @Benchmark
+    public boolean hasMergeMovements() {
+        nextBoard();
+        return model.hasMergeMovements();
+    }
+
+    /**
+     * Restores the next board and returns the direction to play on it; every
+     * board is visited with all four directions in turn.
+     */
+    private Direction nextBoard() {
+        var current = step++;
+        model.restoreSnapshot(boards[current & (BOARDS - 1)]);
+        return DIRECTIONS[(current >>> 8) & 3];
+    }
+}
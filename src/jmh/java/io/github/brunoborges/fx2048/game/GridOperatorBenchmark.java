@@ -0,0 +1,55 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntBinaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link GridOperator#traverseGrid(Direction, IntBinaryOperator)} counting the
+ * tiles of realistic boards, the way the UI walks the grid after a move.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridOperatorBenchmark {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Param({ "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16" })
+    int gridSize;
+
+    private GridOperator gridOperator;
+    private BoardState[] boards;
+    private BoardState board;
+    private IntBinaryOperator countTiles;
+    private int step;
+
+    @Setup
+    public void setUp() {
+        gridOperator = new GridOperator(gridSize);
+        boards = RealisticBoards.sample(gridSize, GameModelBenchmark.SEED, GameModelBenchmark.BOARDS);
+        countTiles = (x, y) -> board.exponentAt(x, y) == 0 ? 0 : 1;
+    }
+
+    @Benchmark
+    public int traverseGrid() {
+        var current = step++;
+        board = boards[current & (GameModelBenchmark.BOARDS - 1)];
+        return gridOperator.traverseGrid(DIRECTIONS[(current >>> 8) & 3], countTiles);
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.brunoborges.fx2048.game;
+
+
+/**
+ * Board states sampled from seeded games, so benchmarks see the tile
+ * densities and merge patterns of real play instead of empty or random grids.
+ */
+final class RealisticBoards {
+
+    private RealisticBoards() {
+    }
+
+    /**
+     * Plays seeded games with random legal moves and keeps one board every
+     * {@code gridSize * gridSize} moves, starting a new game whenever one ends.
+     */
+    static BoardState[] sample(int gridSize, long seed, int count) {
+        var model = new GameModel(new GridOperator(gridSize), SpawnStream.seeded(seed));
+        var choices = SpawnStream.seeded(~seed);
+        var directions = Direction.values();
+        var stride = gridSize * gridSize;
+        var boards = new BoardState[count];
+        model.startGame();
+        for (int sampled = 0, moves = 1; sampled < count; moves++) {
+            var start = choices.nextInt(directions.length);
+            var moved = false;
+            for (int i = 0; i < directions.length && !moved; i++) {
+                moved = model.play(directions[(start + i) % directions.length]) != BitBoardEngine.NO_MOVE;
+            }
+            if (!moved) {
+                model.startGame();
+                continue;
+            }
+            model.addRandomTile();
+            if (moves % stride == 0) {
+                boards[sampled++] = model.snapshot();
+            }
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BitBoardEngine#move} without a listener, as searches and turbo play
+ * call it, on realistic boards of large grids, moved tile by tile
+ * ({@code vector=false}) or with {@code VectorLines} ({@code vector=true}),
+ * which needs the {@code vector} profile as well.
+ * <p>
+ * Each invocation copies the next sampled board before the measured move, so
+ * {@link #copyBoard()} is the baseline to subtract from {@link #move()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+@State(Scope.Thread)
+public class VectorLinesBenchmark {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Param({ "6", "8", "10", "12", "14", "16" })
+    int gridSize;
+
+    @Param({ "false", "true" })
+    boolean vector;
+
+    private BitBoardEngine[] boards;
+    private BitBoardEngine engine;
+    private int step;
+
+    @Setup
+    public void setUp() {
+        var samples = RealisticBoards.sample(gridSize, GameModelBenchmark.SEED, GameModelBenchmark.BOARDS);
+        boards = new BitBoardEngine[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            boards[i] = new BitBoardEngine(gridSize, null, null, false);
+            boards[i].restore(samples[i]);
+        }
+        engine = new BitBoardEngine(gridSize, null, null, vector);
+    }
+
+    @Benchmark
+    public BitBoardEngine copyBoard() {
+        nextBoard();
+        return engine;
+    }
+
+    @Benchmark
+    public int move() {
+        return engine.move(nextBoard(), null);
+    }
+
+    /**
+     * Copies the next board and returns the direction to play on it; every
+     * board is visited with all four directions in turn.
+     */
+    private Direction nextBoard() {
+        var current = step++;
+        engine.copyFrom(boards[current & (GameModelBenchmark.BOARDS - 1)]);
+        return DIRECTIONS[(current >>> 8) & 3];
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+
+/**
+ * Static evaluation of a position, used at the leaves of a search.
+ * <p>
+ * Searches score positions without any legal move as {@code 0}, so
+ * evaluations of playable positions should be positive. Implementations
+ * must not modify the board and must be safe to call from several search
+ * threads at once.
+ */
+@FunctionalInterface
+public interface Evaluator {
+
+    double evaluate(BitBoardEngine board);
+
+    /**
+     * Returns whether every rotation and reflection of a board gets the same
+     * evaluation, which lets searches share cached values between them.
+     */
+    default boolean isSymmetric() {
+        return false;
+    }
+}
@@ -0,0 +1,233 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import java.time.Duration;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.SpawnStrategy;
+
+/**
+ * An adversary that spawns the tile hurting the player most.
+ * <p>
+ * Every 2 or 4 in every empty cell is tried, and the one chosen is the spawn
+ * whose minimax value is lowest: the player answers each spawn with their
+ * best move, the spawner answers that with its worst spawn, and so on for
+ * {@link Options#depth()} player moves, after which the {@link Evaluator}
+ * scores the board. A spawn after which the player cannot move is a loss
+ * and always chosen. Alpha-beta pruning skips the replies that cannot change
+ * the outcome.
+ * <p>
+ * Spawns are searched one player move deeper at a time until the depth or
+ * {@link Options#timeCap()} is reached; the spawn of the deepest search that
+ * finished is placed. The first iteration always completes. The search plays
+ * on one preallocated engine per ply and does not allocate while searching.
+ * An instance is not thread safe.
+ */
+public final class EvilSpawner implements SpawnStrategy {
+
+    public static final int MAX_DEPTH = 8;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1 << 8;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final double LOSS = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Strength and latency of the adversary.
+     *
+     * @param depth the number of player moves to look ahead
+     * @param timeCap the time after which no deeper search is started or finished
+     */
+    public record Options(int depth, Duration timeCap) {
+
+        public Options {
+            if (depth < 1 || depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+            }
+            if (timeCap == null || timeCap.isNegative()) {
+                throw new IllegalArgumentException("The time cap cannot be negative");
+            }
+        }
+
+        /**
+         * Looks three moves ahead within 12 ms, which leaves room in a 60 Hz frame.
+         */
+        public static Options defaults() {
+            return new Options(3, Duration.ofMillis(12));
+        }
+    }
+
+    /**
+     * A chosen spawn.
+     *
+     * @param cell the engine index of the cell
+     * @param exponent 1 for a 2, 2 for a 4
+     * @param value the minimax value of the board after the spawn
+     * @param depth the player moves the search looked ahead
+     */
+    public record Spawn(int cell, int exponent, double value, int depth) {}
+
+    private final int gridSize;
+    private final Evaluator evaluator;
+    private final Options options;
+    private final BitBoardEngine[] plies = new BitBoardEngine[MAX_DEPTH + 1];
+    private long nodes;
+    private long deadline;
+    private boolean aborted;
+
+    public EvilSpawner(int gridSize) {
+        this(gridSize, HeuristicEvaluator.INSTANCE, Options.defaults());
+    }
+
+    public EvilSpawner(int gridSize, Evaluator evaluator, Options options) {
+        this.gridSize = gridSize;
+        this.evaluator = evaluator;
+        this.options = options;
+    }
+
+    public int gridSize() {
+        return gridSize;
+    }
+
+    @Override
+    public int spawn(BitBoardEngine board) {
+        var spawn = choose(board);
+        if (spawn == null) {
+            return -1;
+        }
+        board.setExponent(spawn.cell(), spawn.exponent());
+        return spawn.cell();
+    }
+
+    /**
+     * Returns the spawn to place on {@code board}, or {@code null} when it is
+     * full. The board is left unchanged.
+     */
+    public Spawn choose(BitBoardEngine board) {
+        if (board.gridSize() != gridSize) {
+            throw new IllegalArgumentException("Board of size %d cannot be searched on a %dx%d grid"
+                    .formatted(board.gridSize(), gridSize, gridSize));
+        }
+        if (board.isFull()) {
+            return null;
+        }
+        var capDeadline = System.nanoTime() + options.timeCap().toNanos();
+        nodes = 0;
+        Spawn best = null;
+        for (int depth = 1; depth <= options.depth(); depth++) {
+            var spawn = searchRoot(board, depth, depth == 1 ? Long.MAX_VALUE : capDeadline);
+            if (aborted) {
+                break;
+            }
+            best = spawn;
+            if (spawn.value() == LOSS) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    private Spawn searchRoot(BitBoardEngine board, int depth, long deadline) {
+        this.deadline = deadline;
+        this.aborted = false;
+        var root = ply(0);
+        root.copyFrom(board);
+
+        var bestCell = -1;
+        var bestExponent = 0;
+        var beta = Double.POSITIVE_INFINITY;
+        for (int cell = 0; cell < root.cellCount(); cell++) {
+            if (root.exponentAt(cell) != 0) {
+                continue;
+            }
+            for (int exponent = 1; exponent <= 2; exponent++) {
+                root.setExponent(cell, exponent);
+                var value = maxNode(0, depth, LOSS, beta);
+                root.setExponent(cell, 0);
+                if (aborted) {
+                    return null;
+                }
+                if (bestCell < 0 || value < beta) {
+                    bestCell = cell;
+                    bestExponent = exponent;
+                    beta = value;
+                }
+            }
+        }
+        return new Spawn(bestCell, bestExponent, beta, depth);
+    }
+
+    /**
+     * Returns the best value the player reaches from the board of {@code ply},
+     * or {@code beta} or more once the spawner would avoid this board anyway.
+     */
+    private double maxNode(int ply, int remainingDepth, double alpha, double beta) {
+        if ((++nodes & (DEADLINE_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > deadline) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        var board = plies[ply];
+        var child = ply(ply + 1);
+        var best = LOSS;
+        for (var direction : DIRECTIONS) {
+            child.copyFrom(board);
+            if (child.move(direction, null) == BitBoardEngine.NO_MOVE) {
+                continue;
+            }
+            var value = remainingDepth == 1
+                    ? evaluator.evaluate(child)
+                    : minNode(ply + 1, remainingDepth - 1, Math.max(alpha, best), beta);
+            if (value > best) {
+                best = value;
+                if (best >= beta) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the lowest value the spawner holds the board of {@code ply} to,
+     * or {@code alpha} or less once the player would avoid this board anyway.
+     * The board is restored before returning.
+     */
+    private double minNode(int ply, int remainingDepth, double alpha, double beta) {
+        var board = plies[ply];
+        var best = Double.POSITIVE_INFINITY;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.exponentAt(cell) != 0) {
+                continue;
+            }
+            for (int exponent = 1; exponent <= 2; exponent++) {
+                board.setExponent(cell, exponent);
+                var value = maxNode(ply, remainingDepth, alpha, Math.min(beta, best));
+                board.setExponent(cell, 0);
+                if (aborted) {
+                    return 0;
+                }
+                if (value < best) {
+                    best = value;
+                    if (best <= alpha) {
+                        return best;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private BitBoardEngine ply(int ply) {
+        if (plies[ply] == null) {
+            plies[ply] = new BitBoardEngine(gridSize, null);
+        }
+        return plies[ply];
+    }
+}
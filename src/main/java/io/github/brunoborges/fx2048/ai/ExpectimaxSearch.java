@@ -0,0 +1,276 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.Symmetry;
+
+/**
+ * Expectimax search over the player's moves and the tile spawns that follow them.
+ * <p>
+ * Max nodes try the four {@link Direction}s; chance nodes average over a 2 or a
+ * 4 in every empty cell, weighted like {@link BitBoardEngine#addRandomTile()}.
+ * Branches whose probability drops below {@value #MIN_PROBABILITY} are
+ * evaluated instead of expanded. {@link #search(BoardState, Duration)} deepens
+ * one move at a time and returns the best move of the deepest search that
+ * finished before the budget ran out.
+ * <p>
+ * The search plays on one preallocated engine per ply and does not allocate
+ * while searching. With a {@link TranspositionTable}, the value of every
+ * expanded chance node is cached under the Zobrist hash of its board, so
+ * positions reached through different move orders are searched once; the
+ * table may be shared with other searches. When the evaluator is symmetric,
+ * 4x4 boards are cached under the hash of their {@link Symmetry} canonical
+ * form, so rotated and mirrored positions share one entry. An instance is not thread safe.
+ */
+public final class ExpectimaxSearch implements MoveSearch {
+
+    public static final int MAX_DEPTH = 16;
+
+    static final double MIN_PROBABILITY = 1e-4;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1 << 10;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+    private final int gridSize;
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final ZobristKeys zobrist;
+    private final boolean canonicalKeys;
+    private final BitBoardEngine[] plies = new BitBoardEngine[MAX_DEPTH + 1];
+    private long nodes;
+    private long deadline;
+    private BooleanSupplier cancelled = NOT_CANCELLED;
+    private boolean aborted;
+
+    public ExpectimaxSearch(int gridSize, Evaluator evaluator) {
+        this(gridSize, evaluator, null);
+    }
+
+    /**
+     * @param table the cache for chance node values, or {@code null} for none
+     */
+    public ExpectimaxSearch(int gridSize, Evaluator evaluator, TranspositionTable table) {
+        this.gridSize = gridSize;
+        this.evaluator = evaluator;
+        this.table = table;
+        this.zobrist = table == null ? null : ZobristKeys.forGridSize(gridSize);
+        this.canonicalKeys = gridSize == 4 && evaluator.isSymmetric();
+    }
+
+    @Override
+    public int gridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Searches with iterative deepening until {@code budget} runs out. The
+     * first iteration always completes, so a legal move is found even when
+     * the budget is exhausted.
+     *
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    @Override
+    public SearchResult search(BoardState board, Duration budget) {
+        var started = System.nanoTime();
+        var budgetDeadline = started + budget.toNanos();
+        cancelled = Thread.currentThread()::isInterrupted;
+        nodes = 0;
+        if (table != null) {
+            table.nextGeneration();
+        }
+        SearchResult best = null;
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            var result = searchRoot(board, depth, depth == 1 ? Long.MAX_VALUE : budgetDeadline, started);
+            if (aborted) {
+                break;
+            }
+            best = result;
+            if (result.direction() == null) {
+                break;
+            }
+        }
+        cancelled = NOT_CANCELLED;
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Interrupted while searching");
+        }
+        return new SearchResult(best.direction(), best.value(), best.depth(), nodes, System.nanoTime() - started);
+    }
+
+    /**
+     * Searches exactly {@code depth} moves ahead, without a time limit.
+     */
+    public SearchResult searchDepth(BoardState board, int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+        }
+        nodes = 0;
+        cancelled = NOT_CANCELLED;
+        if (table != null) {
+            table.nextGeneration();
+        }
+        return searchRoot(board, depth, Long.MAX_VALUE, System.nanoTime());
+    }
+
+    /**
+     * Returns the value of every move from {@code board}, searched exactly
+     * {@code depth} moves ahead without a time limit, indexed by
+     * {@link Direction#ordinal()}; moves that do not move any tile are
+     * {@link Double#NaN}.
+     */
+    public double[] scoreMoves(BoardState board, int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+        }
+        nodes = 0;
+        if (table != null) {
+            table.nextGeneration();
+        }
+        this.deadline = Long.MAX_VALUE;
+        this.cancelled = NOT_CANCELLED;
+        this.aborted = false;
+        var root = ply(0);
+        root.restore(board);
+        var child = ply(1);
+        var values = new double[DIRECTIONS.length];
+        for (var direction : DIRECTIONS) {
+            child.copyFrom(root);
+            values[direction.ordinal()] = child.move(direction, null) == BitBoardEngine.NO_MOVE
+                    ? Double.NaN
+                    : chanceNode(1, depth - 1, 1.0);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the expected value of the spawns on {@code afterMove}, looking
+     * {@code remainingDepth} more moves ahead. {@link ParallelExpectimaxSearch}
+     * uses it for the subtrees it does not split; the subtree is aborted at
+     * {@code deadline} or once {@code cancelled} returns true.
+     */
+    double chanceValue(BitBoardEngine afterMove, int remainingDepth, double probability, long deadline,
+            BooleanSupplier cancelled) {
+        this.deadline = deadline;
+        this.cancelled = cancelled;
+        this.aborted = false;
+        ply(0).copyFrom(afterMove);
+        return chanceNode(0, remainingDepth, probability);
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    boolean aborted() {
+        return aborted;
+    }
+
+    private SearchResult searchRoot(BoardState board, int depth, long deadline, long started) {
+        this.deadline = deadline;
+        this.aborted = false;
+        var root = ply(0);
+        root.restore(board);
+
+        Direction bestDirection = null;
+        var bestValue = 0.0;
+        var child = ply(1);
+        for (var direction : DIRECTIONS) {
+            child.copyFrom(root);
+            if (child.move(direction, null) == BitBoardEngine.NO_MOVE) {
+                continue;
+            }
+            var value = chanceNode(1, depth - 1, 1.0);
+            if (bestDirection == null || value > bestValue) {
+                bestDirection = direction;
+                bestValue = value;
+            }
+        }
+        return new SearchResult(bestDirection, bestValue, depth, nodes, System.nanoTime() - started);
+    }
+
+    /**
+     * Averages over the spawns on the board of {@code ply}, which is restored
+     * before returning.
+     */
+    private double chanceNode(int ply, int remainingDepth, double probability) {
+        var board = plies[ply];
+        var empty = board.emptyCellCount();
+        if (remainingDepth == 0 || empty == 0 || probability < MIN_PROBABILITY) {
+            return evaluator.evaluate(board);
+        }
+        var hash = 0L;
+        if (table != null) {
+            hash = tableKey(board);
+            var cached = table.probe(hash, remainingDepth);
+            if (!Double.isNaN(cached)) {
+                return cached;
+            }
+        }
+
+        var twoProbability = BitBoardEngine.TWO_SPAWN_PROBABILITY;
+        var fourProbability = 1 - twoProbability;
+        var sum = 0.0;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.exponentAt(cell) != 0) {
+                continue;
+            }
+            board.setExponent(cell, 1);
+            sum += twoProbability * maxNode(ply, remainingDepth, probability * twoProbability / empty);
+            board.setExponent(cell, 2);
+            sum += fourProbability * maxNode(ply, remainingDepth, probability * fourProbability / empty);
+            board.setExponent(cell, 0);
+            if (aborted) {
+                return 0;
+            }
+        }
+        var value = sum / empty;
+        if (table != null) {
+            table.store(hash, remainingDepth, value);
+        }
+        return value;
+    }
+
+    private double maxNode(int ply, int remainingDepth, double probability) {
+        if ((++nodes & (DEADLINE_CHECK_INTERVAL - 1)) == 0
+                && (System.nanoTime() > deadline || cancelled.getAsBoolean())) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        var board = plies[ply];
+        var child = ply(ply + 1);
+        var best = 0.0;
+        for (var direction : DIRECTIONS) {
+            child.copyFrom(board);
+            if (child.move(direction, null) != BitBoardEngine.NO_MOVE) {
+                best = Math.max(best, chanceNode(ply + 1, remainingDepth - 1, probability));
+            }
+        }
+        return best;
+    }
+
+    private long tableKey(BitBoardEngine board) {
+        if (canonicalKeys) {
+            var nibbles = Symmetry.toNibbles(board);
+            if (nibbles != -1) {
+                return zobrist.hashNibbles(Symmetry.canonicalNibbles(nibbles));
+            }
+        }
+        return zobrist.hash(board);
+    }
+
+    private BitBoardEngine ply(int ply) {
+        if (plies[ply] == null) {
+            plies[ply] = new BitBoardEngine(gridSize, null);
+        }
+        return plies[ply];
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+
+/**
+ * Hand-tuned evaluation that scores every row and column of the board.
+ * <p>
+ * A line earns points for empty cells and adjacent equal tiles, and loses
+ * points when its tiles are not monotonic and in proportion to the tiles it
+ * holds, which together keep large tiles lined up along an edge. Line scores of
+ * 4x4 boards are read from a table built on first use; larger lines are scored
+ * directly.
+ */
+public final class HeuristicEvaluator implements Evaluator {
+
+    public static final HeuristicEvaluator INSTANCE = new HeuristicEvaluator();
+
+    private static final double LINE_BASE = 200_000;
+    private static final double EMPTY_WEIGHT = 270;
+    private static final double MERGE_WEIGHT = 700;
+    private static final double MONOTONICITY_WEIGHT = 47;
+    private static final double SUM_WEIGHT = 11;
+
+    private static final int MAX_EXPONENT = 31;
+    private static final double[] SUM_POWERS = powers(3.5);
+    private static final double[] MONOTONICITY_POWERS = powers(4);
+
+    private static final int TABLE_LINE_LENGTH = 4;
+    private static final int TABLE_MAX_EXPONENT = 15;
+
+    private HeuristicEvaluator() {
+    }
+
+    /**
+     * Rows and columns are scored alike and monotonicity counts either order,
+     * so the evaluation does not depend on how the board is turned.
+     */
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    @Override
+    public double evaluate(BitBoardEngine board) {
+        var gridSize = board.gridSize();
+        return gridSize == TABLE_LINE_LENGTH ? evaluateWithTable(board) : evaluateLines(board);
+    }
+
+    private static double evaluateWithTable(BitBoardEngine board) {
+        var table = LineScores.TABLE;
+        var score = 0.0;
+        for (int line = 0; line < TABLE_LINE_LENGTH; line++) {
+            var row = 0;
+            var column = 0;
+            for (int position = 0; position < TABLE_LINE_LENGTH; position++) {
+                var rowExponent = board.exponentAt(position * TABLE_LINE_LENGTH + line);
+                var columnExponent = board.exponentAt(line * TABLE_LINE_LENGTH + position);
+                if (rowExponent > TABLE_MAX_EXPONENT || columnExponent > TABLE_MAX_EXPONENT) {
+                    return evaluateLines(board);
+                }
+                row |= rowExponent << (position * 4);
+                column |= columnExponent << (position * 4);
+            }
+            score += table[row] + table[column];
+        }
+        return score;
+    }
+
+    private static double evaluateLines(BitBoardEngine board) {
+        var gridSize = board.gridSize();
+        var score = 0.0;
+        for (int line = 0; line < gridSize; line++) {
+            // the row, whose cells lie a column apart, then the column
+            score += scoreLine(board, null, line, gridSize, gridSize);
+            score += scoreLine(board, null, line * gridSize, 1, gridSize);
+        }
+        return score;
+    }
+
+    static double scoreLine(int[] exponents) {
+        return scoreLine(null, exponents, 0, 1, exponents.length);
+    }
+
+    /**
+     * Scores a line read from {@code exponents}, or straight from the cells
+     * {@code first}, {@code first + stride}, ... of {@code board} when it is
+     * not {@code null}, so searches score lines without a buffer.
+     */
+    private static double scoreLine(BitBoardEngine board, int[] exponents, int first, int stride, int length) {
+        var sum = 0.0;
+        var empty = 0;
+        var merges = 0;
+        var previous = 0;
+        var equalRun = 0;
+        var decreasing = 0.0;
+        var increasing = 0.0;
+        var before = 0.0;
+        for (int position = 0; position < length; position++) {
+            var exponent = board == null ? exponents[position] : board.exponentAt(first + position * stride);
+            var after = MONOTONICITY_POWERS[exponent];
+            if (position > 0) {
+                if (before > after) {
+                    decreasing += before - after;
+                } else {
+                    increasing += after - before;
+                }
+            }
+            before = after;
+
+            sum += SUM_POWERS[exponent];
+            if (exponent == 0) {
+                empty++;
+                continue;
+            }
+            if (exponent == previous) {
+                equalRun++;
+            } else if (equalRun > 0) {
+                merges += 1 + equalRun;
+                equalRun = 0;
+            }
+            previous = exponent;
+        }
+        if (equalRun > 0) {
+            merges += 1 + equalRun;
+        }
+
+        return LINE_BASE + EMPTY_WEIGHT * empty + MERGE_WEIGHT * merges
+                - MONOTONICITY_WEIGHT * Math.min(decreasing, increasing) - SUM_WEIGHT * sum;
+    }
+
+    private static double[] powers(double power) {
+        var powers = new double[MAX_EXPONENT + 1];
+        for (int exponent = 0; exponent <= MAX_EXPONENT; exponent++) {
+            powers[exponent] = Math.pow(exponent, power);
+        }
+        return powers;
+    }
+
+    /**
+     * Scores of every 4-cell line keyed by its exponents, four bits per cell.
+     */
+    private static final class LineScores {
+
+        static final float[] TABLE = build();
+
+        private static float[] build() {
+            var table = new float[1 << (TABLE_LINE_LENGTH * 4)];
+            var exponents = new int[TABLE_LINE_LENGTH];
+            for (int key = 0; key < table.length; key++) {
+                for (int position = 0; position < TABLE_LINE_LENGTH; position++) {
+                    exponents[position] = key >>> (position * 4) & TABLE_MAX_EXPONENT;
+                }
+                table[key] = (float) scoreLine(exponents);
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+
+/**
+ * Pure Monte Carlo move search: random playouts instead of a search tree.
+ * <p>
+ * Every legal move is played, then finished many times with uniformly random
+ * moves until the game is over; the move whose playouts earn the most points
+ * on average wins. Each legal move gets {@link Options#tasksPerMove()} tasks on
+ * virtual threads. A task checks the deadline and its interrupt after every
+ * playout, and its first playout always completes, so every legal move is
+ * sampled even when the budget is exhausted.
+ * {@link SearchResult#nodes()} counts playouts, and
+ * {@link SearchResult#nodesPerSecond()} is the playout rate to tune the
+ * options with.
+ */
+public final class MonteCarloSearch implements MoveSearch {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int ALL_DIRECTIONS = (1 << DIRECTIONS.length) - 1;
+
+    private final int gridSize;
+    private final Options options;
+    private final SplittableRandom random;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Tuning of the playouts.
+     *
+     * @param tasksPerMove the number of virtual threads playing out each legal move
+     */
+    public record Options(int tasksPerMove) {
+
+        public Options {
+            if (tasksPerMove < 1) {
+                throw new IllegalArgumentException("Tasks per move must be positive");
+            }
+        }
+
+        public static Options defaults() {
+            return new Options(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    public MonteCarloSearch(int gridSize) {
+        this(gridSize, Options.defaults(), new SplittableRandom());
+    }
+
+    /**
+     * @param random the source of the playout streams; seed it for repeatable playouts
+     */
+    public MonteCarloSearch(int gridSize, Options options, SplittableRandom random) {
+        this.gridSize = gridSize;
+        this.options = options;
+        this.random = random;
+    }
+
+    @Override
+    public int gridSize() {
+        return gridSize;
+    }
+
+    public Options options() {
+        return options;
+    }
+
+    /**
+     * Plays out every legal move until {@code budget} runs out; the value of
+     * the result is the mean of the points earned from this board on.
+     *
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    @Override
+    public SearchResult search(BoardState board, Duration budget) {
+        var started = System.nanoTime();
+        var deadline = started + budget.toNanos();
+        var root = new BitBoardEngine(gridSize, null);
+        root.restore(board);
+
+        var moves = new ArrayList<Direction>();
+        var tasks = new ArrayList<List<Future<Tally>>>();
+        for (var direction : DIRECTIONS) {
+            var afterMove = root.copy();
+            var points = afterMove.move(direction, null);
+            if (points == BitBoardEngine.NO_MOVE) {
+                continue;
+            }
+            var moveTasks = new ArrayList<Future<Tally>>(options.tasksPerMove());
+            for (int i = 0; i < options.tasksPerMove(); i++) {
+                var playouts = new Playouts(afterMove, points, random.split(), deadline);
+                moveTasks.add(executor.submit(playouts::run));
+            }
+            moves.add(direction);
+            tasks.add(moveTasks);
+        }
+
+        Direction bestDirection = null;
+        var bestValue = 0.0;
+        var playouts = 0L;
+        try {
+            for (int i = 0; i < moves.size(); i++) {
+                var count = 0L;
+                var total = 0L;
+                for (var task : tasks.get(i)) {
+                    var tally = join(task);
+                    count += tally.playouts();
+                    total += tally.points();
+                }
+                playouts += count;
+                var value = (double) total / count;
+                if (bestDirection == null || value > bestValue) {
+                    bestDirection = moves.get(i);
+                    bestValue = value;
+                }
+            }
+        } finally {
+            tasks.forEach(moveTasks -> moveTasks.forEach(task -> task.cancel(true)));
+        }
+        return new SearchResult(bestDirection, bestValue, 1, playouts, System.nanoTime() - started);
+    }
+
+    /**
+     * Stops the virtual threads of searches still running.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static Tally join(Future<Tally> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for playouts");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Playout failed", e.getCause());
+        }
+    }
+
+    private record Tally(long playouts, long points) {}
+
+    /**
+     * The playouts of one task, played on its own engine and random stream.
+     */
+    private record Playouts(BitBoardEngine afterMove, int movePoints, RandomGenerator random, long deadline) {
+
+        Tally run() {
+            var engine = new BitBoardEngine(afterMove.gridSize(), random);
+            var playouts = 0L;
+            var points = 0L;
+            do {
+                engine.copyFrom(afterMove);
+                points += movePoints + playOut(engine);
+                playouts++;
+            } while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted());
+            return new Tally(playouts, points);
+        }
+
+        /**
+         * Spawns a tile and plays random legal moves until the game is over.
+         */
+        private long playOut(BitBoardEngine engine) {
+            var points = 0L;
+            engine.addRandomTile();
+            while (!engine.isGameOver()) {
+                var untried = ALL_DIRECTIONS;
+                int earned;
+                do {
+                    var remaining = untried;
+                    for (int skip = random.nextInt(Integer.bitCount(untried)); skip > 0; skip--) {
+                        remaining &= remaining - 1;
+                    }
+                    var direction = Integer.numberOfTrailingZeros(remaining);
+                    untried &= ~(1 << direction);
+                    earned = engine.move(DIRECTIONS[direction], null);
+                } while (earned == BitBoardEngine.NO_MOVE);
+                points += earned;
+                engine.addRandomTile();
+            }
+            return points;
+        }
+    }
+}
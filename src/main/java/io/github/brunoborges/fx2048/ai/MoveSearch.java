@@ -0,0 +1,23 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import java.time.Duration;
+
+import io.github.brunoborges.fx2048.game.BoardState;
+
+/**
+ * Chooses a move for a board within a time budget.
+ */
+public interface MoveSearch extends AutoCloseable {
+
+    SearchResult search(BoardState board, Duration budget);
+
+    int gridSize();
+
+    /**
+     * Releases threads held by the search; the default does nothing.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,378 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.Location;
+import io.github.brunoborges.fx2048.game.Symmetry;
+
+/**
+ * An n-tuple network: a position is valued by summing one learned weight per
+ * tuple of cells, looked up by the exponents in those cells.
+ * <p>
+ * Every tuple is applied in all eight {@link Symmetry} orientations with
+ * shared weights, so the network values rotated and mirrored boards alike.
+ * Exponents above {@value #MAX_EXPONENT} are clamped, giving each tuple of
+ * {@code k} cells {@code 16^k} weights. Trained by temporal-difference
+ * learning on afterstates, the value estimates the points still to be earned
+ * after a move, which is what {@link ExpectimaxSearch} asks of its leaves.
+ * <p>
+ * Weights are {@code float}s held in one array on the heap or in one
+ * off-heap {@link MemorySegment}, for layouts too large for the heap.
+ * {@link #update} does plain, unsynchronized writes: trainers on several
+ * threads share a network and may lose an occasional update ("Hogwild").
+ * Networks are saved to and loaded from a compact binary checkpoint.
+ */
+public final class NTupleNetwork implements Evaluator, AutoCloseable {
+
+    public static final int MAX_EXPONENT = 15;
+
+    private static final int MAGIC = 0x4E545550; // "NTUP"
+    private static final int VERSION = 1;
+    private static final int BITS_PER_CELL = 4;
+
+    /**
+     * Tuple layouts, placed from the top left corner.
+     */
+    public enum Layout {
+        /** Two rows and two 2x2 squares of 4 cells: 4 x 65,536 weights, 1 MiB. */
+        SMALL(List.of(
+                cells(0, 0, 1, 0, 2, 0, 3, 0),
+                cells(0, 1, 1, 1, 2, 1, 3, 1),
+                cells(0, 0, 1, 0, 0, 1, 1, 1),
+                cells(1, 1, 2, 1, 1, 2, 2, 2))),
+        /** Four tuples of 6 cells: 4 x 16,777,216 weights, 256 MiB. */
+        LARGE(List.of(
+                cells(0, 0, 1, 0, 2, 0, 3, 0, 0, 1, 1, 1),
+                cells(0, 1, 1, 1, 2, 1, 3, 1, 0, 2, 1, 2),
+                cells(0, 0, 1, 0, 2, 0, 0, 1, 1, 1, 2, 1),
+                cells(0, 1, 1, 1, 2, 1, 0, 2, 1, 2, 2, 2)));
+
+        private final List<List<Location>> tuples;
+
+        Layout(List<List<Location>> tuples) {
+            this.tuples = tuples;
+        }
+
+        public List<List<Location>> tuples() {
+            return tuples;
+        }
+
+        public static Layout fromString(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown layout " + name + "; use small or large");
+            }
+        }
+
+        private static List<Location> cells(int... coordinates) {
+            var cells = new ArrayList<Location>();
+            for (int i = 0; i < coordinates.length; i += 2) {
+                cells.add(new Location(coordinates[i], coordinates[i + 1]));
+            }
+            return List.copyOf(cells);
+        }
+    }
+
+    /**
+     * Where the weights live.
+     */
+    public enum Storage {
+        HEAP, OFF_HEAP;
+
+        public static Storage fromString(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "heap" -> HEAP;
+                case "off-heap", "offheap" -> OFF_HEAP;
+                default -> throw new IllegalArgumentException("Unknown storage " + name + "; use heap or off-heap");
+            };
+        }
+    }
+
+    private final int gridSize;
+    private final List<List<Location>> tuples;
+    private final Weights weights;
+    // the engine cells of every tuple in every orientation, and where its weights start
+    private final int[][] features;
+    private final int[] offsets;
+
+    public NTupleNetwork(int gridSize, Layout layout, Storage storage) {
+        this(gridSize, layout.tuples(), storage);
+    }
+
+    private NTupleNetwork(int gridSize, List<List<Location>> tuples, Storage storage) {
+        this.gridSize = gridSize;
+        this.tuples = List.copyOf(tuples);
+        var symmetries = Symmetry.values();
+        this.features = new int[tuples.size() * symmetries.length][];
+        this.offsets = new int[features.length];
+        var weightCount = 0L;
+        for (int t = 0; t < tuples.size(); t++) {
+            var tuple = tuples.get(t);
+            if (tuple.isEmpty() || tuple.size() * BITS_PER_CELL > 30) {
+                throw new IllegalArgumentException("Tuples must have between 1 and 7 cells");
+            }
+            for (var cell : tuple) {
+                if (!cell.isValidFor(gridSize)) {
+                    throw new IllegalArgumentException("Cell %s is outside a %dx%d grid"
+                            .formatted(cell, gridSize, gridSize));
+                }
+            }
+            for (int s = 0; s < symmetries.length; s++) {
+                var cells = new int[tuple.size()];
+                for (int i = 0; i < cells.length; i++) {
+                    var cell = symmetries[s].apply(tuple.get(i), gridSize);
+                    cells[i] = cell.x() * gridSize + cell.y();
+                }
+                features[t * symmetries.length + s] = cells;
+                offsets[t * symmetries.length + s] = (int) weightCount;
+            }
+            weightCount += 1L << (tuple.size() * BITS_PER_CELL);
+            if (weightCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many weights: " + weightCount);
+            }
+        }
+        this.weights = storage == Storage.HEAP ? new HeapWeights((int) weightCount) : new SegmentWeights(weightCount);
+    }
+
+    public int gridSize() {
+        return gridSize;
+    }
+
+    public List<List<Location>> tuples() {
+        return tuples;
+    }
+
+    public Storage storage() {
+        return weights instanceof HeapWeights ? Storage.HEAP : Storage.OFF_HEAP;
+    }
+
+    public long weightCount() {
+        return weights.size();
+    }
+
+    public long memoryBytes() {
+        return weights.size() * Float.BYTES;
+    }
+
+    /**
+     * Returns the number of weights read by one evaluation, eight per tuple.
+     */
+    public int featureCount() {
+        return features.length;
+    }
+
+    @Override
+    public double evaluate(BitBoardEngine board) {
+        var value = 0.0;
+        for (int f = 0; f < features.length; f++) {
+            value += weights.get(offsets[f] + index(board, features[f]));
+        }
+        return value;
+    }
+
+    /**
+     * Adds {@code delta} to every weight that {@link #evaluate} reads for
+     * {@code board}, which moves its value by about {@code delta} times
+     * {@link #featureCount()}.
+     */
+    public void update(BitBoardEngine board, double delta) {
+        var step = (float) delta;
+        for (int f = 0; f < features.length; f++) {
+            weights.add(offsets[f] + index(board, features[f]), step);
+        }
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    /**
+     * Writes the layout and weights to {@code path}, through a temporary file
+     * that replaces it once complete. Weights being trained meanwhile may be
+     * saved half updated.
+     */
+    public void save(Path path) throws IOException {
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(gridSize);
+            out.writeByte(tuples.size());
+            for (var tuple : tuples) {
+                out.writeByte(tuple.size());
+                for (var cell : tuple) {
+                    out.writeByte(cell.x());
+                    out.writeByte(cell.y());
+                }
+            }
+            out.flush();
+            // most weights of a large layout are never visited and stay 0
+            var deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                var compressed = new DeflaterOutputStream(out, deflater);
+                var weightsOut = new DataOutputStream(new BufferedOutputStream(compressed));
+                for (long i = 0; i < weights.size(); i++) {
+                    weightsOut.writeFloat(weights.get((int) i));
+                }
+                weightsOut.flush();
+                compressed.finish();
+            } finally {
+                deflater.end();
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a network written by {@link #save}.
+     *
+     * @throws IOException if the file cannot be read or is not a network checkpoint
+     */
+    public static NTupleNetwork load(Path path, Storage storage) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not an n-tuple network");
+            }
+            var version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported n-tuple network version " + version);
+            }
+            var gridSize = in.readUnsignedByte();
+            var tuples = new ArrayList<List<Location>>();
+            for (int t = in.readUnsignedByte(); t > 0; t--) {
+                var cells = new ArrayList<Location>();
+                for (int c = in.readUnsignedByte(); c > 0; c--) {
+                    cells.add(new Location(in.readUnsignedByte(), in.readUnsignedByte()));
+                }
+                tuples.add(List.copyOf(cells));
+            }
+
+            NTupleNetwork network;
+            try {
+                network = new NTupleNetwork(gridSize, tuples, storage);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid n-tuple network: " + e.getMessage(), e);
+            }
+            var weightsIn = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in)));
+            for (long i = 0; i < network.weights.size(); i++) {
+                network.weights.set((int) i, weightsIn.readFloat());
+            }
+            return network;
+        }
+    }
+
+    /**
+     * Frees off-heap weights; the network cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        weights.close();
+    }
+
+    private static int index(BitBoardEngine board, int[] cells) {
+        var index = 0;
+        for (var cell : cells) {
+            index = index << BITS_PER_CELL | Math.min(board.exponentAt(cell), MAX_EXPONENT);
+        }
+        return index;
+    }
+
+    private sealed interface Weights permits HeapWeights, SegmentWeights {
+
+        long size();
+
+        float get(int index);
+
+        void set(int index, float value);
+
+        void add(int index, float delta);
+
+        default void close() {
+        }
+    }
+
+    private static final class HeapWeights implements Weights {
+
+        private final float[] values;
+
+        HeapWeights(int size) {
+            this.values = new float[size];
+        }
+
+        @Override
+        public long size() {
+            return values.length;
+        }
+
+        @Override
+        public float get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, float value) {
+            values[index] = value;
+        }
+
+        @Override
+        public void add(int index, float delta) {
+            values[index] += delta;
+        }
+    }
+
+    private static final class SegmentWeights implements Weights {
+
+        private final Arena arena = Arena.ofShared();
+        private final MemorySegment values;
+
+        SegmentWeights(long size) {
+            // allocated memory is zeroed
+            this.values = arena.allocate(size * Float.BYTES, Float.BYTES);
+        }
+
+        @Override
+        public long size() {
+            return values.byteSize() / Float.BYTES;
+        }
+
+        @Override
+        public float get(int index) {
+            return values.getAtIndex(ValueLayout.JAVA_FLOAT, index);
+        }
+
+        @Override
+        public void set(int index, float value) {
+            values.setAtIndex(ValueLayout.JAVA_FLOAT, index, value);
+        }
+
+        @Override
+        public void add(int index, float delta) {
+            values.setAtIndex(ValueLayout.JAVA_FLOAT, index, values.getAtIndex(ValueLayout.JAVA_FLOAT, index) + delta);
+        }
+
+        @Override
+        public void close() {
+            arena.close();
+        }
+    }
+}
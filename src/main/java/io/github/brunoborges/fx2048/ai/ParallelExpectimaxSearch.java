@@ -0,0 +1,320 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+
+/**
+ * {@link ExpectimaxSearch} split across a {@link ForkJoinPool}.
+ * <p>
+ * Every legal move at the root becomes a task. Chance nodes within
+ * {@link Options#splitDepth()} moves of the root are split into one task per
+ * spawn, and the moves below each spawn into further tasks, until the
+ * remaining depth drops below {@link Options#granularity()}; smaller subtrees
+ * run sequentially on a per-thread {@link ExpectimaxSearch}. Work stealing
+ * balances the uneven subtrees. Values are combined in the same order as the
+ * sequential search, so without a transposition table both return the same
+ * move and value at equal depth. A table is shared by all worker threads.
+ */
+public final class ParallelExpectimaxSearch implements MoveSearch {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int gridSize;
+    private final Options options;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<ExpectimaxSearch> sequential;
+    private final TranspositionTable table;
+
+    /**
+     * Tuning of the parallel search.
+     *
+     * @param parallelism the number of worker threads
+     * @param splitDepth how many moves below the root chance nodes are still split into tasks
+     * @param granularity the smallest remaining depth, in moves, of a chance node that is split
+     */
+    public record Options(int parallelism, int splitDepth, int granularity) {
+
+        public Options {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive");
+            }
+            if (splitDepth < 0 || splitDepth >= ExpectimaxSearch.MAX_DEPTH) {
+                throw new IllegalArgumentException("Split depth must be between 0 and " + (ExpectimaxSearch.MAX_DEPTH - 1));
+            }
+            if (granularity < 1) {
+                throw new IllegalArgumentException("Granularity must be at least one move");
+            }
+        }
+
+        public static Options defaults() {
+            return withParallelism(Runtime.getRuntime().availableProcessors());
+        }
+
+        public static Options withParallelism(int parallelism) {
+            return new Options(parallelism, 1, 2);
+        }
+    }
+
+    public ParallelExpectimaxSearch(int gridSize, Evaluator evaluator, Options options) {
+        this(gridSize, evaluator, options, null);
+    }
+
+    /**
+     * @param table the cache shared by the worker threads, or {@code null} for none
+     */
+    public ParallelExpectimaxSearch(int gridSize, Evaluator evaluator, Options options, TranspositionTable table) {
+        this.gridSize = gridSize;
+        this.options = options;
+        this.table = table;
+        this.pool = new ForkJoinPool(options.parallelism());
+        this.sequential = ThreadLocal.withInitial(() -> new ExpectimaxSearch(gridSize, evaluator, table));
+    }
+
+    @Override
+    public int gridSize() {
+        return gridSize;
+    }
+
+    public Options options() {
+        return options;
+    }
+
+    /**
+     * Searches with iterative deepening until {@code budget} runs out; the
+     * first iteration always completes.
+     *
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    @Override
+    public SearchResult search(BoardState board, Duration budget) {
+        var started = System.nanoTime();
+        var budgetDeadline = started + budget.toNanos();
+        var nodes = 0L;
+        if (table != null) {
+            table.nextGeneration();
+        }
+        SearchResult best = null;
+        for (int depth = 1; depth <= ExpectimaxSearch.MAX_DEPTH; depth++) {
+            var search = new Search(depth == 1 ? Long.MAX_VALUE : budgetDeadline);
+            var result = search.run(board, depth, started);
+            nodes += result.nodes();
+            if (search.aborted) {
+                break;
+            }
+            best = result;
+            if (result.direction() == null) {
+                break;
+            }
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Interrupted while searching");
+        }
+        return new SearchResult(best.direction(), best.value(), best.depth(), nodes, System.nanoTime() - started);
+    }
+
+    /**
+     * Searches exactly {@code depth} moves ahead, without a time limit.
+     *
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    public SearchResult searchDepth(BoardState board, int depth) {
+        if (depth < 1 || depth > ExpectimaxSearch.MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + ExpectimaxSearch.MAX_DEPTH);
+        }
+        if (table != null) {
+            table.nextGeneration();
+        }
+        var result = new Search(Long.MAX_VALUE).run(board, depth, System.nanoTime());
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Interrupted while searching");
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * State shared by the tasks of one iteration.
+     */
+    private final class Search {
+
+        private final long deadline;
+        private final LongAdder nodes = new LongAdder();
+        private volatile boolean aborted;
+
+        Search(long deadline) {
+            this.deadline = deadline;
+        }
+
+        boolean aborted() {
+            return aborted;
+        }
+
+        SearchResult run(BoardState board, int depth, long started) {
+            var root = new BitBoardEngine(gridSize, null);
+            root.restore(board);
+            var moves = new ArrayList<ChanceTask>(DIRECTIONS.length);
+            var directions = new ArrayList<Direction>(DIRECTIONS.length);
+            for (var direction : DIRECTIONS) {
+                var child = root.copy();
+                if (child.move(direction, null) != BitBoardEngine.NO_MOVE) {
+                    moves.add(new ChanceTask(this, child, 1, depth - 1, 1.0));
+                    directions.add(direction);
+                }
+            }
+            var task = pool.submit(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(moves);
+                }
+            });
+            try {
+                // unlike invoke(), get() returns when the caller is interrupted
+                task.get();
+            } catch (InterruptedException e) {
+                aborted = true;
+                task.join();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search failed", e.getCause());
+            }
+
+            Direction bestDirection = null;
+            var bestValue = 0.0;
+            for (int i = 0; i < moves.size(); i++) {
+                var value = moves.get(i).value;
+                if (bestDirection == null || value > bestValue) {
+                    bestDirection = directions.get(i);
+                    bestValue = value;
+                }
+            }
+            return new SearchResult(bestDirection, bestValue, depth, nodes.sum(), System.nanoTime() - started);
+        }
+    }
+
+    // RecursiveAction is Serializable, but the tasks never leave the pool
+    @SuppressWarnings("serial")
+    private abstract static class NodeTask extends RecursiveAction {
+
+        final Search search;
+        final BitBoardEngine board;
+        final int ply;
+        final int remainingDepth;
+        final double probability;
+        double value;
+
+        NodeTask(Search search, BitBoardEngine board, int ply, int remainingDepth, double probability) {
+            this.search = search;
+            this.board = board;
+            this.ply = ply;
+            this.remainingDepth = remainingDepth;
+            this.probability = probability;
+        }
+    }
+
+    /**
+     * Averages over the spawns on a board the player just moved.
+     */
+    @SuppressWarnings("serial")
+    private final class ChanceTask extends NodeTask {
+
+        ChanceTask(Search search, BitBoardEngine board, int ply, int remainingDepth, double probability) {
+            super(search, board, ply, remainingDepth, probability);
+        }
+
+        @Override
+        protected void compute() {
+            if (search.aborted) {
+                return;
+            }
+            var empty = board.emptyCellCount();
+            if (ply > options.splitDepth() || remainingDepth < options.granularity()
+                    || empty == 0 || probability < ExpectimaxSearch.MIN_PROBABILITY) {
+                computeSequentially();
+                return;
+            }
+
+            var twoProbability = BitBoardEngine.TWO_SPAWN_PROBABILITY;
+            var fourProbability = 1 - twoProbability;
+            var spawns = new MaxTask[2 * empty];
+            var next = 0;
+            for (int cell = 0; cell < board.cellCount(); cell++) {
+                if (board.exponentAt(cell) != 0) {
+                    continue;
+                }
+                var two = board.copy();
+                two.setExponent(cell, 1);
+                spawns[next++] = new MaxTask(search, two, ply, remainingDepth, probability * twoProbability / empty);
+                var four = board.copy();
+                four.setExponent(cell, 2);
+                spawns[next++] = new MaxTask(search, four, ply, remainingDepth, probability * fourProbability / empty);
+            }
+            invokeAll(spawns);
+
+            var sum = 0.0;
+            for (int i = 0; i < spawns.length; i += 2) {
+                sum += twoProbability * spawns[i].value;
+                sum += fourProbability * spawns[i + 1].value;
+            }
+            value = sum / empty;
+        }
+
+        private void computeSequentially() {
+            var subtree = sequential.get();
+            var nodesBefore = subtree.nodes();
+            value = subtree.chanceValue(board, remainingDepth, probability, search.deadline, search::aborted);
+            search.nodes.add(subtree.nodes() - nodesBefore);
+            if (subtree.aborted()) {
+                search.aborted = true;
+            }
+        }
+    }
+
+    /**
+     * Picks the best move on a board that just received a spawn.
+     */
+    @SuppressWarnings("serial")
+    private final class MaxTask extends NodeTask {
+
+        MaxTask(Search search, BitBoardEngine board, int ply, int remainingDepth, double probability) {
+            super(search, board, ply, remainingDepth, probability);
+        }
+
+        @Override
+        protected void compute() {
+            search.nodes.increment();
+            if (search.aborted || System.nanoTime() > search.deadline) {
+                search.aborted = true;
+                return;
+            }
+
+            var moves = new ArrayList<ChanceTask>(DIRECTIONS.length);
+            for (var direction : DIRECTIONS) {
+                var child = board.copy();
+                if (child.move(direction, null) != BitBoardEngine.NO_MOVE) {
+                    moves.add(new ChanceTask(search, child, ply + 1, remainingDepth - 1, probability));
+                }
+            }
+            invokeAll(moves);
+
+            var best = 0.0;
+            for (var move : moves) {
+                best = Math.max(best, move.value);
+            }
+            value = best;
+        }
+    }
+}
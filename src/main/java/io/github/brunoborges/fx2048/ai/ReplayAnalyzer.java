@@ -0,0 +1,164 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameRecord;
+
+/**
+ * Scores every move of a recorded game against the best move on its board.
+ * <p>
+ * The positions of a {@link GameRecord} are independent, so
+ * {@link Options#parallelism()} workers take them in order from a shared
+ * counter, each with its own {@link ExpectimaxSearch}, and every legal move
+ * of a position is searched to the same fixed depth. Results are passed on
+ * as each position finishes, on the worker threads.
+ */
+public final class ReplayAnalyzer implements AutoCloseable {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Strength and parallelism of the analysis.
+     *
+     * @param depth the moves searched ahead of every position
+     * @param parallelism the number of positions analyzed at once
+     */
+    public record Options(int depth, int parallelism) {
+
+        public Options {
+            if (depth < 1 || depth > ExpectimaxSearch.MAX_DEPTH) {
+                throw new IllegalArgumentException("Depth must be between 1 and " + ExpectimaxSearch.MAX_DEPTH);
+            }
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive");
+            }
+        }
+
+        public static Options defaults() {
+            return new Options(2, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * The search values of the move played on a board and of the best move there.
+     *
+     * @param move the index of the move in the game
+     */
+    public record MoveAnalysis(int move, BoardState board, Direction played, Direction best, double playedValue,
+            double bestValue) {
+
+        /**
+         * Returns the value lost by not playing the best move, {@code 0} when it was played.
+         */
+        public double loss() {
+            return bestValue - playedValue;
+        }
+    }
+
+    private final int gridSize;
+    private final Evaluator evaluator;
+    private final Options options;
+    private final ExecutorService executor;
+
+    public ReplayAnalyzer(int gridSize, Evaluator evaluator, Options options) {
+        this.gridSize = gridSize;
+        this.evaluator = evaluator;
+        this.options = options;
+        var workerIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(options.parallelism(), task -> {
+            var thread = new Thread(task, "fx2048-analyzer-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Options options() {
+        return options;
+    }
+
+    /**
+     * Analyzes every move of {@code record}, passing each analysis to
+     * {@code onAnalyzed} as soon as it is done, and returns them all in game order.
+     *
+     * @throws IllegalArgumentException if the record is for another grid size or cannot be replayed
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    public List<MoveAnalysis> analyze(GameRecord record, Consumer<MoveAnalysis> onAnalyzed) {
+        if (record.start().gridSize() != gridSize) {
+            throw new IllegalArgumentException("Record of a %dx%d game cannot be analyzed on a %dx%d grid"
+                    .formatted(record.start().gridSize(), record.start().gridSize(), gridSize, gridSize));
+        }
+        var positions = record.positions();
+        var next = new AtomicInteger();
+        var workers = new ArrayList<Future<List<MoveAnalysis>>>(options.parallelism());
+        for (int i = 0; i < Math.min(options.parallelism(), positions.size()); i++) {
+            workers.add(executor.submit(() -> {
+                var search = new ExpectimaxSearch(gridSize, evaluator);
+                var analyses = new ArrayList<MoveAnalysis>();
+                for (int move = next.getAndIncrement(); move < positions.size(); move = next.getAndIncrement()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    var analysis = analyze(search, move, positions.get(move), record.steps().get(move).direction());
+                    analyses.add(analysis);
+                    onAnalyzed.accept(analysis);
+                }
+                return analyses;
+            }));
+        }
+
+        var analyses = new ArrayList<MoveAnalysis>(positions.size());
+        try {
+            for (var worker : workers) {
+                analyses.addAll(join(worker));
+            }
+        } finally {
+            workers.forEach(worker -> worker.cancel(true));
+        }
+        analyses.sort(Comparator.comparingInt(MoveAnalysis::move));
+        return analyses;
+    }
+
+    /**
+     * Stops the workers of analyses still running.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private MoveAnalysis analyze(ExpectimaxSearch search, int move, BoardState board, Direction played) {
+        // the replay checked that the played move is legal, so its value is not NaN
+        var values = search.scoreMoves(board, options.depth());
+        var best = played;
+        for (var direction : DIRECTIONS) {
+            if (values[direction.ordinal()] > values[best.ordinal()]) {
+                best = direction;
+            }
+        }
+        return new MoveAnalysis(move, board, played, best, values[played.ordinal()], values[best.ordinal()]);
+    }
+
+    private static List<MoveAnalysis> join(Future<List<MoveAnalysis>> worker) {
+        try {
+            return worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while analyzing");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import io.github.brunoborges.fx2048.game.Direction;
+
+/**
+ * Outcome of a move search.
+ *
+ * @param direction the best move, or {@code null} when no move is possible
+ * @param value the expected evaluation of that move
+ * @param depth the number of moves searched ahead
+ * @param nodes the number of max nodes visited, over all iterations, or of
+ *        playouts for {@link MonteCarloSearch}
+ * @param elapsedNanos the wall-clock time of the search
+ */
+public record SearchResult(Direction direction, double value, int depth, long nodes, long elapsedNanos) {
+
+    public double nodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+    }
+}
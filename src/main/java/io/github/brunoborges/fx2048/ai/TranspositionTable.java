@@ -0,0 +1,157 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of search values keyed by Zobrist hash.
+ * <p>
+ * Entries live in two parallel {@code long} arrays, grouped in buckets of two
+ * slots. The data word packs the value as a {@code float}, the search depth
+ * it was computed at and the generation of the search that stored it; the key
+ * word holds {@code hash ^ data}. A reader only accepts a slot whose two words
+ * XOR back to the hash it is looking for, so concurrent searches can read and
+ * write without locks: a slot torn by a racing writer simply reads as a miss.
+ * <p>
+ * A store goes to an empty slot, to one left by an older generation, or to
+ * the slot holding the shallower result when both are in use, and is dropped
+ * if both slots hold deeper results of the current generation. The table never
+ * grows beyond the byte size given to the constructor.
+ */
+public final class TranspositionTable {
+
+    public static final long DEFAULT_MAX_BYTES = 2L << 20;
+
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int DEPTH_SHIFT = 8;
+    private static final int VALUE_SHIFT = 32;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private volatile int generation = 1;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Hit and occupancy counters, as of the time {@link #stats()} was called.
+     */
+    public record Stats(long capacity, long occupied, long probes, long hits, long stores) {
+
+        public double hitRate() {
+            return probes == 0 ? 0 : (double) hits / probes;
+        }
+
+        public double occupancy() {
+            return (double) occupied / capacity;
+        }
+    }
+
+    /**
+     * Creates the largest power-of-two table that fits {@code maxBytes}.
+     *
+     * @throws IllegalArgumentException if {@code maxBytes} cannot hold a single bucket
+     */
+    public TranspositionTable(long maxBytes) {
+        var entries = Long.highestOneBit(Math.min(maxBytes / BYTES_PER_ENTRY, 1 << 30));
+        if (entries < 2) {
+            throw new IllegalArgumentException("A transposition table needs at least %d bytes"
+                    .formatted(2 * BYTES_PER_ENTRY));
+        }
+        this.keys = new long[(int) entries];
+        this.data = new long[(int) entries];
+        this.mask = (int) entries - 2;
+    }
+
+    public long memoryBytes() {
+        return (long) keys.length * BYTES_PER_ENTRY;
+    }
+
+    /**
+     * Starts a new generation; entries of older ones are replaced first.
+     */
+    public void nextGeneration() {
+        generation = (generation & 0xFF) == 0xFF ? 1 : generation + 1;
+    }
+
+    /**
+     * Returns the value stored for {@code hash} at {@code depth} or deeper,
+     * or {@code NaN} when there is none.
+     */
+    public double probe(long hash, int depth) {
+        probes.increment();
+        var bucket = (int) hash & mask;
+        for (int slot = bucket; slot < bucket + 2; slot++) {
+            var entry = data[slot];
+            if (entry != 0 && (keys[slot] ^ entry) == hash && depthOf(entry) >= depth) {
+                hits.increment();
+                return Float.intBitsToFloat((int) (entry >>> VALUE_SHIFT));
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Stores the value of {@code hash} searched {@code depth} moves deep, where
+     * {@code depth} is between 1 and 255.
+     */
+    public void store(long hash, int depth, double value) {
+        var currentGeneration = generation;
+        var entry = (long) Float.floatToRawIntBits((float) value) << VALUE_SHIFT
+                | (long) depth << DEPTH_SHIFT | currentGeneration;
+        var bucket = (int) hash & mask;
+        var target = -1;
+        var targetDepth = Integer.MAX_VALUE;
+        for (int slot = bucket; slot < bucket + 2; slot++) {
+            var stored = data[slot];
+            if ((keys[slot] ^ stored) == hash && stored != 0) {
+                if (depthOf(stored) > depth && generationOf(stored) == currentGeneration) {
+                    return;
+                }
+                target = slot;
+                break;
+            }
+            if (stored == 0 || generationOf(stored) != currentGeneration) {
+                targetDepth = -1;
+                target = slot;
+            } else if (depthOf(stored) <= depth && depthOf(stored) < targetDepth) {
+                target = slot;
+                targetDepth = depthOf(stored);
+            }
+        }
+        if (target < 0) {
+            return;
+        }
+        data[target] = entry;
+        keys[target] = hash ^ entry;
+        stores.increment();
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    /**
+     * Returns the counters; occupancy is counted by scanning the table.
+     */
+    public Stats stats() {
+        var occupied = 0L;
+        for (var entry : data) {
+            if (entry != 0) {
+                occupied++;
+            }
+        }
+        return new Stats(data.length, occupied, probes.sum(), hits.sum(), stores.sum());
+    }
+
+    private static int depthOf(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    private static int generationOf(long entry) {
+        return (int) entry & 0xFF;
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+import io.github.brunoborges.fx2048.game.Symmetry;
+
+/**
+ * Zobrist keys: one random 64-bit key per cell and tile exponent, XORed over
+ * the occupied cells to hash a board.
+ * <p>
+ * Keys are drawn from a fixed seed, so hashes are stable across runs, and are
+ * shared per grid size. Empty cells contribute nothing, which lets a single
+ * tile change be applied with {@link #key(int, int)}.
+ */
+public final class ZobristKeys {
+
+    /**
+     * Exponents 1 to 31 cover every tile value that fits an {@code int}.
+     */
+    public static final int EXPONENTS = 32;
+
+    private static final long SEED = 0x2048_2048_2048_2048L;
+    private static final ZobristKeys[] KEYS = new ZobristKeys[GridOperator.MAX_GRID_SIZE + 1];
+
+    private final int cellCount;
+    private final long[] keys;
+
+    private ZobristKeys(int gridSize) {
+        this.cellCount = gridSize * gridSize;
+        this.keys = new long[cellCount * EXPONENTS];
+        var random = SpawnStream.seeded(SEED + gridSize);
+        for (int cell = 0; cell < cellCount; cell++) {
+            for (int exponent = 1; exponent < EXPONENTS; exponent++) {
+                keys[cell * EXPONENTS + exponent] = random.nextLong();
+            }
+        }
+    }
+
+    public static synchronized ZobristKeys forGridSize(int gridSize) {
+        if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > GridOperator.MAX_GRID_SIZE) {
+            throw new IllegalArgumentException("Grid size must be of range %s and %s."
+                    .formatted(GridOperator.MIN_GRID_SIZE, GridOperator.MAX_GRID_SIZE));
+        }
+        if (KEYS[gridSize] == null) {
+            KEYS[gridSize] = new ZobristKeys(gridSize);
+        }
+        return KEYS[gridSize];
+    }
+
+    /**
+     * Returns the key of a tile; {@code 0} for an empty cell.
+     */
+    public long key(int cellIndex, int exponent) {
+        return keys[cellIndex * EXPONENTS + exponent];
+    }
+
+    public long hash(BitBoardEngine board) {
+        var hash = 0L;
+        for (int cell = 0; cell < cellCount; cell++) {
+            hash ^= keys[cell * EXPONENTS + board.exponentAt(cell)];
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes a 4x4 nibble board as laid out by {@link Symmetry#toNibbles}.
+     */
+    public long hashNibbles(long nibbles) {
+        var hash = 0L;
+        for (int cell = 0; cell < 16; cell++) {
+            hash ^= keys[cell * EXPONENTS + (int) (nibbles >>> (cell << 2) & 0xF)];
+        }
+        return hash;
+    }
+
+    public long hash(BoardState board) {
+        var hash = 0L;
+        for (int cell = 0; cell < cellCount; cell++) {
+            hash ^= keys[cell * EXPONENTS + board.exponentAt(cell)];
+        }
+        return hash;
+    }
+}
@@ -27,6 +27,7 @@ public class Game2048 extends Application {
     @Override
     public void stop() {
         gamePane.dispose();
+        UserSettings.LOCAL.flush();
     }
 
     @Override
@@ -0,0 +1,591 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Allocation-free implementation of the 2048 rules.
+ * <p>
+ * The grid is stored as tile exponents ({@code 0} for an empty cell, {@code n}
+ * for a tile of value {@code 2^n}) packed one byte per cell, eight cells per
+ * {@code long}. Cells are indexed column-major ({@code x * gridSize + y}), which
+ * is the order {@link GridOperator#traverseGrid} visits them, so random tile
+ * selection and move results match the {@link GameModel} traversal exactly.
+ * <p>
+ * Empty cells are also tracked in a bitset kept up to date by every write, so
+ * picking a random empty cell and checking for a full grid never scan the grid.
+ * Every write also updates the number of adjacent cells holding equal tiles,
+ * which makes {@link #hasMergeMovements()} and {@link #isGameOver()} field reads.
+ * <p>
+ * Small grids are moved with a {@link LineTable}. Grids of 6x6 and larger
+ * are moved line by line with the Vector API when the build includes
+ * {@code VectorLines} (the {@code vector} Maven profile), the JVM is started
+ * with {@code --add-modules jdk.incubator.vector} and
+ * {@value #VECTOR_LINES_PROPERTY} is not {@code false}, unless the movements
+ * are needed. Everything else is moved tile by tile.
+ */
+public final class BitBoardEngine {
+
+    public static final int NO_MOVE = -1;
+    public static final String VECTOR_LINES_PROPERTY = "fx2048.vectorLines";
+    private static final int TABLE_MISS = Integer.MIN_VALUE;
+    public static final int WIN_EXPONENT = Integer.numberOfTrailingZeros(GameModel.FINAL_VALUE_TO_WIN);
+    /**
+     * Probability that a spawned tile is a 2 rather than a 4.
+     */
+    public static final double TWO_SPAWN_PROBABILITY = 0.9;
+
+    static final int CELLS_PER_WORD = Long.SIZE / Byte.SIZE;
+    private static final long CELL_MASK = 0xFFL;
+    /**
+     * The smallest grid moved with vectors by default; below it the scalar
+     * engine is as fast, see {@code VectorLinesBenchmark}.
+     */
+    private static final int VECTOR_LINES_MIN_GRID_SIZE = 6;
+    private static final Constructor<? extends LineMover> VECTOR_LINES = findVectorLines();
+    private static final boolean VECTOR_LINES_ENABLED = VECTOR_LINES != null
+            && Boolean.parseBoolean(System.getProperty(VECTOR_LINES_PROPERTY, "true"));
+
+    private final int gridSize;
+    private final int cellCount;
+    private final long[] words;
+    private final long[] emptyCells;
+    private int emptyCount;
+    private int equalPairCount;
+    private final RandomGenerator random;
+    private final LineTable lineTable;
+    private final LineMover vectorLines;
+    private final int[] lineKeys;
+    private final int[] lineEntries;
+    private final int[] lineTarget;
+    private final int[] lineMergeable;
+    private final int[] shuffledCells;
+    private boolean lastMoveWon;
+
+    /**
+     * Receives the tile movements of a move, in the same order
+     * {@link GameModel#move(Direction)} reports them.
+     */
+    public interface MoveListener {
+        void moved(int fromX, int fromY, int toX, int toY);
+
+        void merged(int fromX, int fromY, int toX, int toY, int mergedValue);
+    }
+
+    /**
+     * Moves a whole grid without reporting movements. Implemented by
+     * {@code VectorLines}, which is compiled only by the {@code vector} Maven
+     * profile so the default build does not use the incubating Vector API.
+     */
+    interface LineMover {
+        /**
+         * Moves the grid held in {@code words} and written through {@code engine}.
+         *
+         * @return the points earned by the move, or {@link #NO_MOVE} when no tile moved
+         */
+        int move(BitBoardEngine engine, long[] words, boolean horizontal, boolean reversed);
+
+        boolean lastMoveWon();
+    }
+
+    public BitBoardEngine(int gridSize, RandomGenerator random) {
+        this(gridSize, random, LineTable.forGridSize(gridSize).orElse(null));
+    }
+
+    BitBoardEngine(int gridSize, RandomGenerator random, LineTable lineTable) {
+        this(gridSize, random, lineTable, VECTOR_LINES_ENABLED && gridSize >= VECTOR_LINES_MIN_GRID_SIZE);
+    }
+
+    /**
+     * @param vectorLines whether to move with {@code VectorLines} whatever the
+     *        grid size; see {@link #vectorLinesAvailable()}
+     */
+    BitBoardEngine(int gridSize, RandomGenerator random, LineTable lineTable, boolean vectorLines) {
+        if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > GridOperator.MAX_GRID_SIZE) {
+            throw new IllegalArgumentException("Grid size must be of range %s and %s."
+                    .formatted(GridOperator.MIN_GRID_SIZE, GridOperator.MAX_GRID_SIZE));
+        }
+        this.gridSize = gridSize;
+        this.cellCount = gridSize * gridSize;
+        this.words = new long[(cellCount + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+        this.emptyCells = new long[(cellCount + Long.SIZE - 1) / Long.SIZE];
+        this.random = random;
+        this.lineTable = lineTable;
+        this.vectorLines = vectorLines ? newVectorLines(gridSize) : null;
+        this.lineKeys = new int[gridSize];
+        this.lineEntries = new int[gridSize];
+        this.lineTarget = new int[gridSize];
+        this.lineMergeable = new int[gridSize];
+        this.shuffledCells = new int[cellCount];
+        clear();
+    }
+
+    public int gridSize() {
+        return gridSize;
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    public int cellIndex(int x, int y) {
+        return x * gridSize + y;
+    }
+
+    public int exponentAt(int cellIndex) {
+        return (int) (words[cellIndex >>> 3] >>> ((cellIndex & 7) << 3) & CELL_MASK);
+    }
+
+    public int exponentAt(int x, int y) {
+        return exponentAt(cellIndex(x, y));
+    }
+
+    /**
+     * Returns the tile value at the given cell, or {@code 0} when the cell is empty.
+     */
+    public int valueAt(int x, int y) {
+        var exponent = exponentAt(x, y);
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    public void setExponent(int cellIndex, int exponent) {
+        var word = cellIndex >>> 3;
+        var shift = (cellIndex & 7) << 3;
+        var previous = (int) (words[word] >>> shift & CELL_MASK);
+        if (previous == exponent) {
+            return;
+        }
+        words[word] = words[word] & ~(CELL_MASK << shift) | ((long) exponent << shift);
+        updateEqualPairs(cellIndex, previous, exponent);
+
+        if (previous == 0 && exponent != 0) {
+            emptyCells[cellIndex >>> 6] &= ~(1L << cellIndex);
+            emptyCount--;
+        } else if (previous != 0 && exponent == 0) {
+            emptyCells[cellIndex >>> 6] |= 1L << cellIndex;
+            emptyCount++;
+        }
+    }
+
+    /**
+     * Sets the tile value at the given cell; {@code 0} empties the cell.
+     *
+     * @throws IllegalArgumentException if the value is not {@code 0} or a power of 2 greater than 1
+     */
+    public void setValue(int x, int y, int value) {
+        if (value != 0 && (value < 2 || (value & (value - 1)) != 0)) {
+            throw new IllegalArgumentException("Tile value must be a positive power of 2: " + value);
+        }
+        setExponent(cellIndex(x, y), value == 0 ? 0 : Integer.numberOfTrailingZeros(value));
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+        Arrays.fill(emptyCells, -1L);
+        var unusedBits = emptyCells.length * Long.SIZE - cellCount;
+        emptyCells[emptyCells.length - 1] >>>= unusedBits;
+        emptyCount = cellCount;
+        equalPairCount = 0;
+    }
+
+    /**
+     * Returns an immutable copy of the grid.
+     */
+    public BoardState snapshot() {
+        return new BoardState(gridSize, words.clone());
+    }
+
+    /**
+     * Copies the grid of another engine of the same size without allocating.
+     */
+    public void copyFrom(BitBoardEngine source) {
+        if (source.gridSize != gridSize) {
+            throw new IllegalArgumentException("Engines must have the same grid size");
+        }
+        System.arraycopy(source.words, 0, words, 0, words.length);
+        System.arraycopy(source.emptyCells, 0, emptyCells, 0, emptyCells.length);
+        emptyCount = source.emptyCount;
+        equalPairCount = source.equalPairCount;
+    }
+
+    /**
+     * Whether {@code VectorLines} was built and the JVM added the
+     * {@code jdk.incubator.vector} module, whatever {@value #VECTOR_LINES_PROPERTY} says.
+     */
+    static boolean vectorLinesAvailable() {
+        return VECTOR_LINES != null;
+    }
+
+    private static Constructor<? extends LineMover> findVectorLines() {
+        var vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector");
+        if (vectorModule.isEmpty()) {
+            return null;
+        }
+        // the module does not require the incubator module, so it must read it before loading VectorLines
+        BitBoardEngine.class.getModule().addReads(vectorModule.get());
+        try {
+            var type = Class.forName(BitBoardEngine.class.getPackageName() + ".VectorLines", false,
+                    BitBoardEngine.class.getClassLoader());
+            return type.asSubclass(LineMover.class).getDeclaredConstructor(int.class);
+        } catch (ClassNotFoundException e) {
+            // built without the vector profile
+            return null;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("VectorLines has no grid size constructor", e);
+        }
+    }
+
+    private static LineMover newVectorLines(int gridSize) {
+        if (VECTOR_LINES == null) {
+            throw new IllegalStateException("VectorLines needs the vector build and the jdk.incubator.vector module");
+        }
+        try {
+            return VECTOR_LINES.newInstance(gridSize);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create VectorLines", e);
+        }
+    }
+
+    /**
+     * Returns a copy of the grid for searching. The copy shares the line table,
+     * moves with vectors if this engine does, but has no random generator, so
+     * it cannot spawn tiles.
+     */
+    public BitBoardEngine copy() {
+        var copy = new BitBoardEngine(gridSize, null, lineTable, vectorLines != null);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Replaces the grid with the given board.
+     */
+    public void restore(BoardState board) {
+        if (board.gridSize() != gridSize) {
+            throw new IllegalArgumentException("Board of size %d cannot be restored on a %dx%d grid"
+                    .formatted(board.gridSize(), gridSize, gridSize));
+        }
+        clear();
+        for (int cell = 0; cell < cellCount; cell++) {
+            setExponent(cell, board.exponentAt(cell));
+        }
+    }
+
+    public int emptyCellCount() {
+        return emptyCount;
+    }
+
+    /**
+     * Clears the grid and adds one or two random tiles, consuming the random
+     * generator exactly like the original map based model did.
+     */
+    public void startGame() {
+        clear();
+
+        for (int i = 0; i < cellCount; i++) {
+            shuffledCells[i] = i;
+        }
+        for (int i = cellCount; i > 1; i--) {
+            var j = random.nextInt(i);
+            var swap = shuffledCells[i - 1];
+            shuffledCells[i - 1] = shuffledCells[j];
+            shuffledCells[j] = swap;
+        }
+
+        var firstExponent = randomTileExponent();
+        setExponent(shuffledCells[0], firstExponent);
+
+        if (random.nextFloat() <= 0.8f) {
+            var secondExponent = randomTileExponent();
+            if (firstExponent == 2 && secondExponent == 2) {
+                secondExponent = 1;
+            }
+            setExponent(shuffledCells[1], secondExponent);
+        }
+    }
+
+    /**
+     * Slides and merges all tiles towards the given direction.
+     *
+     * @param listener receives every movement, or {@code null} when movements are not needed
+     * @return the points earned by the move, or {@link #NO_MOVE} when no tile moved
+     */
+    public int move(Direction direction, MoveListener listener) {
+        lastMoveWon = false;
+        var horizontal = direction == Direction.LEFT || direction == Direction.RIGHT;
+        var reversed = direction == Direction.RIGHT || direction == Direction.DOWN;
+
+        if (lineTable != null) {
+            var points = moveWithLineTable(horizontal, reversed, listener);
+            if (points != TABLE_MISS) {
+                return points;
+            }
+        }
+        if (vectorLines != null && listener == null) {
+            var points = vectorLines.move(this, words, horizontal, reversed);
+            lastMoveWon = vectorLines.lastMoveWon();
+            return points;
+        }
+        return moveTileByTile(horizontal, reversed, listener);
+    }
+
+    /**
+     * Looks up every line in the shared {@link LineTable}. Returns
+     * {@link #TABLE_MISS} without touching the grid when a line is not covered.
+     */
+    private int moveWithLineTable(boolean horizontal, boolean reversed, MoveListener listener) {
+        var changed = false;
+        for (int line = 0; line < gridSize; line++) {
+            var key = 0;
+            for (int progress = 0; progress < gridSize; progress++) {
+                var exponent = exponentAt(cellAt(horizontal, reversed, line, progress));
+                if (exponent > LineTable.MAX_EXPONENT) {
+                    return TABLE_MISS;
+                }
+                key |= exponent << (progress * LineTable.BITS_PER_CELL);
+            }
+
+            var entry = lineTable.entry(key);
+            if (entry == LineTable.UNSUPPORTED) {
+                return TABLE_MISS;
+            }
+            lineKeys[line] = key;
+            lineEntries[line] = entry;
+            changed |= LineTable.resultKey(entry, gridSize) != key;
+        }
+
+        if (!changed) {
+            return NO_MOVE;
+        }
+
+        var points = 0;
+        for (int line = 0; line < gridSize; line++) {
+            var result = LineTable.resultKey(lineEntries[line], gridSize);
+            if (result == lineKeys[line]) {
+                continue;
+            }
+            for (int progress = 0; progress < gridSize; progress++) {
+                setExponent(cellAt(horizontal, reversed, line, progress), LineTable.exponentAt(result, progress));
+            }
+            for (var mask = LineTable.mergeMask(lineEntries[line], gridSize); mask != 0; mask &= mask - 1) {
+                var mergedExponent = LineTable.exponentAt(result, Integer.numberOfTrailingZeros(mask));
+                points += 1 << mergedExponent;
+                lastMoveWon |= mergedExponent == WIN_EXPONENT;
+            }
+        }
+
+        if (listener != null) {
+            reportLineTableMovements(horizontal, reversed, listener);
+        }
+        return points;
+    }
+
+    /**
+     * Replays the looked up lines in traversal order to report the same
+     * movements, in the same order, as {@link #moveTileByTile}.
+     */
+    private void reportLineTableMovements(boolean horizontal, boolean reversed, MoveListener listener) {
+        Arrays.fill(lineTarget, 0);
+        Arrays.fill(lineMergeable, 0);
+
+        for (int outer = 0; outer < gridSize; outer++) {
+            for (int inner = 0; inner < gridSize; inner++) {
+                var line = horizontal ? inner : outer;
+                var progress = horizontal ? outer : inner;
+                var key = lineKeys[line];
+                var exponent = LineTable.exponentAt(key, progress);
+                if (exponent == 0 || LineTable.resultKey(lineEntries[line], gridSize) == key) {
+                    continue;
+                }
+
+                var source = cellAt(horizontal, reversed, line, progress);
+                var target = lineTarget[line];
+                var destination = cellAt(horizontal, reversed, line, target);
+                if (lineMergeable[line] != 0) {
+                    listener.merged(source / gridSize, source % gridSize,
+                            destination / gridSize, destination % gridSize, 1 << (exponent + 1));
+                    lineMergeable[line] = 0;
+                    lineTarget[line] = target + 1;
+                    continue;
+                }
+
+                if (target != progress) {
+                    listener.moved(source / gridSize, source % gridSize,
+                            destination / gridSize, destination % gridSize);
+                }
+                if ((LineTable.mergeMask(lineEntries[line], gridSize) >>> target & 1) != 0) {
+                    lineMergeable[line] = 1;
+                } else {
+                    lineTarget[line] = target + 1;
+                }
+            }
+        }
+    }
+
+    private int moveTileByTile(boolean horizontal, boolean reversed, MoveListener listener) {
+        Arrays.fill(lineTarget, 0);
+        Arrays.fill(lineMergeable, 0);
+
+        var moved = false;
+        var points = 0;
+
+        // Visit the cells in the order GridOperator.traverseGrid(direction, ...) does:
+        // x is the outer loop and y the inner one, each reversed towards RIGHT/DOWN.
+        for (int outer = 0; outer < gridSize; outer++) {
+            for (int inner = 0; inner < gridSize; inner++) {
+                var line = horizontal ? inner : outer;
+                var progress = horizontal ? outer : inner;
+                var source = cellAt(horizontal, reversed, line, progress);
+                var exponent = exponentAt(source);
+                if (exponent == 0) {
+                    continue;
+                }
+
+                var target = lineTarget[line];
+                if (lineMergeable[line] == exponent) {
+                    var destination = cellAt(horizontal, reversed, line, target - 1);
+                    var mergedExponent = exponent + 1;
+                    setExponent(destination, mergedExponent);
+                    setExponent(source, 0);
+                    lineMergeable[line] = 0;
+                    points += 1 << mergedExponent;
+                    lastMoveWon |= mergedExponent == WIN_EXPONENT;
+                    moved = true;
+                    if (listener != null) {
+                        listener.merged(source / gridSize, source % gridSize,
+                                destination / gridSize, destination % gridSize, 1 << mergedExponent);
+                    }
+                    continue;
+                }
+
+                if (target != progress) {
+                    var destination = cellAt(horizontal, reversed, line, target);
+                    setExponent(destination, exponent);
+                    setExponent(source, 0);
+                    moved = true;
+                    if (listener != null) {
+                        listener.moved(source / gridSize, source % gridSize,
+                                destination / gridSize, destination % gridSize);
+                    }
+                }
+                lineMergeable[line] = exponent;
+                lineTarget[line] = target + 1;
+            }
+        }
+
+        return moved ? points : NO_MOVE;
+    }
+
+    /**
+     * Returns whether the last {@link #move} produced a {@link GameModel#FINAL_VALUE_TO_WIN} tile.
+     */
+    public boolean lastMoveWon() {
+        return lastMoveWon;
+    }
+
+    /**
+     * Adds a 2 (90%) or a 4 (10%) tile to a random empty cell.
+     *
+     * @return the index of the filled cell, or {@code -1} when the grid is full
+     */
+    public int addRandomTile() {
+        if (emptyCount == 0) {
+            return -1;
+        }
+
+        var cell = emptyCellAt(random.nextInt(emptyCount));
+        setExponent(cell, randomTileExponent());
+        return cell;
+    }
+
+    public boolean isFull() {
+        return emptyCount == 0;
+    }
+
+    /**
+     * Returns the index of the {@code rank}-th empty cell, counting from cell 0.
+     */
+    public int emptyCellAt(int rank) {
+        for (int word = 0; word < emptyCells.length; word++) {
+            var empty = Long.bitCount(emptyCells[word]);
+            if (rank < empty) {
+                return word * Long.SIZE + selectBit(emptyCells[word], rank);
+            }
+            rank -= empty;
+        }
+        throw new IndexOutOfBoundsException("Only %d empty cells".formatted(emptyCount));
+    }
+
+    public boolean hasMergeMovements() {
+        return equalPairCount > 0;
+    }
+
+    /**
+     * Returns whether the grid is full and no two adjacent tiles can merge.
+     */
+    public boolean isGameOver() {
+        return emptyCount == 0 && equalPairCount == 0;
+    }
+
+    private void updateEqualPairs(int cellIndex, int previous, int exponent) {
+        var y = cellIndex % gridSize;
+        if (y > 0) {
+            updateEqualPair(cellIndex - 1, previous, exponent);
+        }
+        if (y < gridSize - 1) {
+            updateEqualPair(cellIndex + 1, previous, exponent);
+        }
+        if (cellIndex >= gridSize) {
+            updateEqualPair(cellIndex - gridSize, previous, exponent);
+        }
+        if (cellIndex < cellCount - gridSize) {
+            updateEqualPair(cellIndex + gridSize, previous, exponent);
+        }
+    }
+
+    private void updateEqualPair(int neighbour, int previous, int exponent) {
+        var neighbourExponent = exponentAt(neighbour);
+        if (neighbourExponent == 0) {
+            return;
+        }
+        if (neighbourExponent == previous) {
+            equalPairCount--;
+        } else if (neighbourExponent == exponent) {
+            equalPairCount++;
+        }
+    }
+
+    private int cellAt(boolean horizontal, boolean reversed, int line, int progress) {
+        var position = reversed ? gridSize - 1 - progress : progress;
+        return horizontal ? position * gridSize + line : line * gridSize + position;
+    }
+
+    private int randomTileExponent() {
+        return random.nextDouble() < TWO_SPAWN_PROBABILITY ? 1 : 2;
+    }
+
+    /**
+     * Returns the position of the {@code rank}-th set bit by halving the word
+     * down to a byte, then clearing the remaining lower bits.
+     */
+    private static int selectBit(long word, int rank) {
+        var offset = 0;
+        for (int width = Integer.SIZE; width >= Byte.SIZE; width >>>= 1) {
+            var lowerBits = Long.bitCount(word & ((1L << width) - 1));
+            if (rank >= lowerBits) {
+                rank -= lowerBits;
+                word >>>= width;
+                offset += width;
+            }
+        }
+        for (; rank > 0; rank--) {
+            word &= word - 1;
+        }
+        return offset + Long.numberOfTrailingZeros(word);
+    }
+}
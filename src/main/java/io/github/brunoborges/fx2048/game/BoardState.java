@@ -0,0 +1,135 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Immutable snapshot of a grid, stored in the packed layout of
+ * {@link BitBoardEngine}: one tile exponent per byte, eight cells per
+ * {@code long}, cells indexed column-major. A 6x6 snapshot is five words, so
+ * copying, comparing and hashing boards is cheap enough for undo, persistence
+ * and search code to pass them around freely.
+ */
+public final class BoardState {
+
+    private final int gridSize;
+    private final long[] words;
+    private final int hash;
+
+    /**
+     * Receives every cell of a board; {@code value} is {@code 0} for empty cells.
+     */
+    @FunctionalInterface
+    public interface CellConsumer {
+        void accept(int x, int y, int value);
+    }
+
+    BoardState(int gridSize, long[] words) {
+        this.gridSize = gridSize;
+        this.words = words;
+        this.hash = 31 * gridSize + Arrays.hashCode(words);
+    }
+
+    public static BoardState empty(int gridSize) {
+        return new BitBoardEngine(gridSize, null, null).snapshot();
+    }
+
+    /**
+     * Creates a board from the tile value of every cell, {@code 0} for empty cells.
+     *
+     * @throws IllegalArgumentException if a value is not {@code 0} or a power of 2 greater than 1
+     */
+    public static BoardState of(int gridSize, IntBinaryOperator values) {
+        var engine = new BitBoardEngine(gridSize, null, null);
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                engine.setValue(x, y, values.applyAsInt(x, y));
+            }
+        }
+        return engine.snapshot();
+    }
+
+    public int gridSize() {
+        return gridSize;
+    }
+
+    public int cellCount() {
+        return gridSize * gridSize;
+    }
+
+    public int exponentAt(int cellIndex) {
+        return (int) (words[cellIndex >>> 3] >>> ((cellIndex & 7) << 3) & 0xFF);
+    }
+
+    public int exponentAt(int x, int y) {
+        return exponentAt(x * gridSize + y);
+    }
+
+    public int valueAt(int x, int y) {
+        var exponent = exponentAt(x, y);
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    public int valueAt(Location location) {
+        return valueAt(location.x(), location.y());
+    }
+
+    /**
+     * Returns the highest tile value on the board, or {@code 0} when it is empty.
+     */
+    public int maxValue() {
+        var maxExponent = 0;
+        for (int cell = 0; cell < cellCount(); cell++) {
+            maxExponent = Math.max(maxExponent, exponentAt(cell));
+        }
+        return maxExponent == 0 ? 0 : 1 << maxExponent;
+    }
+
+    public void forEachCell(CellConsumer consumer) {
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                consumer.accept(x, y, valueAt(x, y));
+            }
+        }
+    }
+
+    /**
+     * Orders boards of the same size by their cells, the last cell being the
+     * most significant.
+     */
+    int compareWords(BoardState other) {
+        for (int i = words.length - 1; i >= 0; i--) {
+            var order = Long.compareUnsigned(words[i], other.words[i]);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof BoardState board
+                && hash == board.hash
+                && gridSize == board.gridSize
+                && Arrays.equals(words, board.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        var text = new StringBuilder("BoardState{gridSize=").append(gridSize);
+        for (int y = 0; y < gridSize; y++) {
+            text.append(y == 0 ? ", rows=[" : " | ");
+            for (int x = 0; x < gridSize; x++) {
+                text.append(x == 0 ? "" : " ").append(valueAt(x, y));
+            }
+        }
+        return text.append("]}").toString();
+    }
+}
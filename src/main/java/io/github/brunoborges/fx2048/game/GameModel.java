@@ -2,24 +2,18 @@ package io.github.brunoborges.fx2048.game;
 
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Random;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public final class GameModel {
     public static final int FINAL_VALUE_TO_WIN = 2048;
 
-    private final GridOperator gridOperator;
-    private final Random random;
-    private final Map<Location, Integer> values = new HashMap<>();
-    private final List<Location> locations = new ArrayList<>();
+    private final BitBoardEngine engine;
+    private BitBoardEngine previewEngine;
+    private SpawnStrategy spawnStrategy = SpawnStrategy.RANDOM;
     public record TileState(Location location, int value) {}
     public record Movement(Location source, Location destination, boolean merge, int mergedValue) {
         public static Movement move(Location source, Location destination) {
@@ -35,147 +29,88 @@ public final class GameModel {
         }
     }
     public GameModel(GridOperator gridOperator) {
-        this(gridOperator, new Random());
+        this(gridOperator, new SplittableRandom());
     }
-    public GameModel(GridOperator gridOperator, Random random) {
-        this.gridOperator = gridOperator;
-        this.random = random;
-        initialize();
+    /**
+     * Creates a model drawing its spawns from {@code random}; pass a
+     * {@link SpawnStream} for games that must be reproducible from a seed.
+     */
+    public GameModel(GridOperator gridOperator, RandomGenerator random) {
+        this.engine = new BitBoardEngine(gridOperator.getGridSize(), random);
     }
     public void initialize() {
-        values.clear();
-        locations.clear();
-        gridOperator.traverseGrid((x, y) -> {
-            var location = new Location(x, y);
-            locations.add(location);
-            values.put(location, null);
-            return 0;
-        });
+        engine.clear();
     }
     public void startGame() {
-        initialize();
-
-        var randomLocations = new ArrayList<>(locations);
-        Collections.shuffle(randomLocations, random);
-
-        var firstTile = new TileState(randomLocations.get(0), randomTileValue());
-        values.put(firstTile.location(), firstTile.value());
-
-        if (random.nextFloat() <= 0.8f) {
-            var secondValue = randomTileValue();
-            if (firstTile.value() == 4 && secondValue == 4) {
-                secondValue = 2;
-            }
-
-            var secondTile = new TileState(randomLocations.get(1), secondValue);
-            values.put(secondTile.location(), secondTile.value());
-        }
+        engine.startGame();
     }
-    public Map<Location, Integer> snapshot() {
-        var snapshot = new HashMap<Location, Integer>();
-        values.forEach((location, value) -> snapshot.put(location, value == null ? 0 : value));
-        return snapshot;
+    public BoardState snapshot() {
+        return engine.snapshot();
     }
-    public void restoreSnapshot(Map<Location, Integer> snapshot) {
-        initialize();
-        snapshot.forEach((location, value) -> {
-            if (gridOperator.isValidLocation(location)) {
-                values.put(location, value == null || value == 0 ? null : value);
-            }
-        });
+    public void restoreSnapshot(BoardState snapshot) {
+        engine.restore(snapshot);
     }
     public MoveResult move(Direction direction) {
         var movements = new ArrayList<Movement>();
-        var mergedLocations = new HashSet<Location>();
-        var points = new AtomicInteger();
-        var won = new AtomicBoolean();
-
-        gridOperator.sortGrid(direction);
-        gridOperator.traverseGrid((x, y) -> {
-            var currentLocation = new Location(x, y);
-            var currentValue = values.get(currentLocation);
-            if (currentValue == null) {
-                return 0;
-            }
-
-            var farthestLocation = findFarthestLocation(currentLocation, direction);
-            var nextLocation = farthestLocation.offset(direction);
-            var nextValue = values.get(nextLocation);
-
-            if (Objects.equals(nextValue, currentValue) && !mergedLocations.contains(nextLocation)) {
-                var mergedValue = currentValue + nextValue;
-                values.put(nextLocation, mergedValue);
-                values.put(currentLocation, null);
-                mergedLocations.add(nextLocation);
-                movements.add(Movement.merge(currentLocation, nextLocation, mergedValue));
-                points.addAndGet(mergedValue);
-                won.compareAndSet(false, mergedValue == FINAL_VALUE_TO_WIN);
-                return 1;
+        var points = engine.move(direction, new BitBoardEngine.MoveListener() {
+            @Override
+            public void moved(int fromX, int fromY, int toX, int toY) {
+                movements.add(Movement.move(new Location(fromX, fromY), new Location(toX, toY)));
             }
 
-            if (!farthestLocation.equals(currentLocation)) {
-                values.put(farthestLocation, currentValue);
-                values.put(currentLocation, null);
-                movements.add(Movement.move(currentLocation, farthestLocation));
-                return 1;
+            @Override
+            public void merged(int fromX, int fromY, int toX, int toY, int mergedValue) {
+                movements.add(Movement.merge(new Location(fromX, fromY), new Location(toX, toY), mergedValue));
             }
-
-            return 0;
         });
 
-        return new MoveResult(List.copyOf(movements), points.get(), won.get());
-    }
-    public Optional<TileState> addRandomTile() {
-        var randomLocation = findRandomAvailableLocation();
-        if (randomLocation.isEmpty()) {
-            return Optional.empty();
+        if (points == BitBoardEngine.NO_MOVE) {
+            return new MoveResult(List.of(), 0, false);
         }
-
-        var tile = new TileState(randomLocation.get(), randomTileValue());
-        values.put(tile.location(), tile.value());
-        return Optional.of(tile);
+        return new MoveResult(List.copyOf(movements), points, engine.lastMoveWon());
     }
-    public boolean isFull() {
-        return values.values().stream().noneMatch(Objects::isNull);
+    /**
+     * Moves the tiles without reporting the movements, for headless play.
+     *
+     * @return the points earned, or {@link BitBoardEngine#NO_MOVE} when no tile moved
+     */
+    public int play(Direction direction) {
+        return engine.move(direction, null);
     }
-    public boolean hasMergeMovements() {
-        for (var direction : List.of(Direction.UP, Direction.LEFT)) {
-            if (gridOperator.traverseGrid((x, y) -> {
-                var location = new Location(x, y);
-                var value = values.get(location);
-                return value != null && Objects.equals(value, values.get(location.offset(direction))) ? 1 : 0;
-            }) > 0) {
-                return true;
-            }
+    /**
+     * Returns what {@link #play(Direction)} would return, leaving the grid untouched.
+     */
+    public int preview(Direction direction) {
+        if (previewEngine == null) {
+            previewEngine = new BitBoardEngine(engine.gridSize(), null);
         }
-
-        return false;
+        previewEngine.copyFrom(engine);
+        return previewEngine.move(direction, null);
     }
-
-    private Location findFarthestLocation(Location location, Direction direction) {
-        Location farthest;
-
-        do {
-            farthest = location;
-            location = farthest.offset(direction);
-        } while (gridOperator.isValidLocation(location) && values.get(location) == null);
-
-        return farthest;
+    /**
+     * Sets how {@link #addRandomTile()} places tiles; games still start with
+     * random tiles.
+     */
+    public void setSpawnStrategy(SpawnStrategy spawnStrategy) {
+        this.spawnStrategy = Objects.requireNonNull(spawnStrategy, "Spawn strategy cannot be null.");
     }
-
-    private Optional<Location> findRandomAvailableLocation() {
-        var availableLocations = locations.stream()
-                .filter(location -> values.get(location) == null)
-                .toList();
-
-        if (availableLocations.isEmpty()) {
+    public Optional<TileState> addRandomTile() {
+        var cell = spawnStrategy.spawn(engine);
+        if (cell < 0) {
             return Optional.empty();
         }
 
-        return Optional.of(availableLocations.get(random.nextInt(availableLocations.size())));
+        var x = cell / engine.gridSize();
+        var y = cell % engine.gridSize();
+        return Optional.of(new TileState(new Location(x, y), engine.valueAt(x, y)));
     }
-
-    private int randomTileValue() {
-        return random.nextDouble() < 0.9 ? 2 : 4;
+    public boolean isFull() {
+        return engine.isFull();
+    }
+    public boolean hasMergeMovements() {
+        return engine.hasMergeMovements();
+    }
+    public boolean isGameOver() {
+        return engine.isGameOver();
     }
 }
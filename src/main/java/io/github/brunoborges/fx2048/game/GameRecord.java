@@ -0,0 +1,58 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The moves of a game and the tiles spawned after them, enough to replay it
+ * from its first board.
+ *
+ * @param start the board before the first move
+ * @param steps the moves in the order they were played
+ */
+public record GameRecord(BoardState start, List<Step> steps) {
+
+    /**
+     * A move and the tile spawned after it.
+     *
+     * @param spawn where the tile was spawned, or {@code null} when the grid was full
+     * @param spawnValue the value of the spawned tile, or {@code 0} without a spawn
+     */
+    public record Step(Direction direction, Location spawn, int spawnValue) {}
+
+    public GameRecord {
+        if (start == null) {
+            throw new IllegalArgumentException("A game record needs a start board");
+        }
+        steps = List.copyOf(steps);
+    }
+
+    /**
+     * Replays the game and returns the board before every move, so
+     * {@code positions().get(i)} is the board {@code steps().get(i)} was played on.
+     *
+     * @throws IllegalArgumentException if a move does not move any tile or a
+     *         spawn does not land on an empty cell
+     */
+    public List<BoardState> positions() {
+        var engine = new BitBoardEngine(start.gridSize(), null);
+        engine.restore(start);
+        var positions = new ArrayList<BoardState>(steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            var step = steps.get(i);
+            positions.add(engine.snapshot());
+            if (engine.move(step.direction(), null) == BitBoardEngine.NO_MOVE) {
+                throw new IllegalArgumentException("Move %d (%s) does not move any tile".formatted(i, step.direction()));
+            }
+            if (step.spawn() != null) {
+                var spawn = step.spawn();
+                if (!spawn.isValidFor(start.gridSize()) || engine.exponentAt(spawn.x(), spawn.y()) != 0) {
+                    throw new IllegalArgumentException("Move %d spawns on %s, which is not empty".formatted(i, spawn));
+                }
+                engine.setValue(spawn.x(), spawn.y(), step.spawnValue());
+            }
+        }
+        return positions;
+    }
+}
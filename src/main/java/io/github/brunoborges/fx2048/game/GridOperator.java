@@ -1,12 +1,7 @@
 package io.github.brunoborges.fx2048.game;
 
 
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntBinaryOperator;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * @author Jose Pereda
@@ -18,9 +13,10 @@ public class GridOperator {
     public static final int MIN_GRID_SIZE = 4;
     public static final int MAX_GRID_SIZE = 16;
 
+    private static final int[][][] TRAVERSAL_PLANS = createTraversalPlans();
+
     private final int gridSize;
-    private final List<Integer> traversalX;
-    private final List<Integer> traversalY;
+    private final int[][] traversalPlans;
 
     public GridOperator() {
         this(DEFAULT_GRID_SIZE);
@@ -32,20 +28,34 @@ public class GridOperator {
         }
 
         this.gridSize = gridSize;
-        this.traversalX = IntStream.range(0, gridSize).boxed().collect(Collectors.toList());
-        this.traversalY = IntStream.range(0, gridSize).boxed().collect(Collectors.toList());
-    }
-
-    public void sortGrid(Direction direction) {
-        Collections.sort(traversalX, direction.equals(Direction.RIGHT) ? Collections.reverseOrder() : Integer::compareTo);
-        Collections.sort(traversalY, direction.equals(Direction.DOWN) ? Collections.reverseOrder() : Integer::compareTo);
+        this.traversalPlans = TRAVERSAL_PLANS[gridSize];
     }
 
+    /**
+     * Visits every cell with x as the outer and y as the inner loop, both ascending.
+     *
+     * @return the sum of the values returned by {@code func}
+     */
     public int traverseGrid(IntBinaryOperator func) {
-        var at = new AtomicInteger();
-        traversalX.forEach(t_x -> traversalY.forEach(t_y -> at.addAndGet(func.applyAsInt(t_x, t_y))));
+        return traverseGrid(Direction.UP, func);
+    }
 
-        return at.get();
+    /**
+     * Visits every cell in the order a move towards {@code direction} processes
+     * them: x is the outer and y the inner loop, x descending for
+     * {@link Direction#RIGHT} and y descending for {@link Direction#DOWN}.
+     * <p>
+     * The traversal plans are immutable and shared, so one operator can be used
+     * by several games and threads at the same time.
+     *
+     * @return the sum of the values returned by {@code func}
+     */
+    public int traverseGrid(Direction direction, IntBinaryOperator func) {
+        var sum = 0;
+        for (var cell : traversalPlans[direction.ordinal()]) {
+            sum += func.applyAsInt(cell >>> 8, cell & 0xFF);
+        }
+        return sum;
     }
 
     public int getGridSize() {
@@ -56,4 +66,28 @@ public class GridOperator {
         return loc.isValidFor(gridSize);
     }
 
+    /**
+     * Precomputes, for every grid size and direction, the visiting order of
+     * the cells packed as {@code x << 8 | y}.
+     */
+    private static int[][][] createTraversalPlans() {
+        var plans = new int[MAX_GRID_SIZE + 1][][];
+        for (int size = MIN_GRID_SIZE; size <= MAX_GRID_SIZE; size++) {
+            plans[size] = new int[Direction.values().length][];
+            for (var direction : Direction.values()) {
+                var plan = new int[size * size];
+                var step = 0;
+                for (int i = 0; i < size; i++) {
+                    var x = direction == Direction.RIGHT ? size - 1 - i : i;
+                    for (int j = 0; j < size; j++) {
+                        var y = direction == Direction.DOWN ? size - 1 - j : j;
+                        plan[step++] = x << 8 | y;
+                    }
+                }
+                plans[size][direction.ordinal()] = plan;
+            }
+        }
+        return plans;
+    }
+
 }
@@ -0,0 +1,161 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Precomputed slide-and-merge results for every line of a small grid.
+ * <p>
+ * A line is keyed by its tile exponents, four bits per cell, with the cell
+ * closest to the move direction in the lowest bits. Each entry packs the
+ * resulting exponents in the same layout, followed by one bit per cell that
+ * marks the cells produced by a merge, so the score delta and the "won" flag
+ * can be derived from the entry itself. Lines holding a tile above
+ * {@code 2^15}, or whose merge would create one, are not covered by the table
+ * and are moved by the scalar engine code instead.
+ * <p>
+ * Tables are built lazily, once per line length, and shared by every engine.
+ * The grid sizes that get a table are read from the {@value #GRID_SIZES_PROPERTY}
+ * system property (default {@value #DEFAULT_GRID_SIZES}); the 6x6 table needs
+ * 64 MiB, so it is only worth enabling on heaps much larger than the game's own.
+ */
+public final class LineTable {
+
+    public static final String GRID_SIZES_PROPERTY = "fx2048.lineTables";
+    public static final String DEFAULT_GRID_SIZES = "4,5";
+    public static final int MAX_LINE_LENGTH = 6;
+
+    static final int BITS_PER_CELL = 4;
+    static final int MAX_EXPONENT = (1 << BITS_PER_CELL) - 1;
+    static final int UNSUPPORTED = -1;
+
+    private static final Logger LOGGER = Logger.getLogger(LineTable.class.getName());
+    private static final LineTable[] TABLES = new LineTable[MAX_LINE_LENGTH + 1];
+    private static boolean[] enabledGridSizes;
+
+    private final int lineLength;
+    private final int[] entries;
+    private final long buildNanos;
+
+    private LineTable(int lineLength) {
+        var started = System.nanoTime();
+        this.lineLength = lineLength;
+        this.entries = new int[1 << (BITS_PER_CELL * lineLength)];
+        var exponents = new int[lineLength];
+        for (int key = 0; key < entries.length; key++) {
+            entries[key] = computeEntry(key, exponents);
+        }
+        this.buildNanos = System.nanoTime() - started;
+    }
+
+    /**
+     * Returns the shared table for the given grid size, building it on first
+     * use, or an empty optional when that grid size is not configured for tables.
+     */
+    public static synchronized Optional<LineTable> forGridSize(int gridSize) {
+        if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > MAX_LINE_LENGTH || !enabledGridSizes()[gridSize]) {
+            return Optional.empty();
+        }
+
+        if (TABLES[gridSize] == null) {
+            var table = new LineTable(gridSize);
+            LOGGER.log(Level.INFO, "Built {0}x{0} line table: {1} entries, {2} KiB in {3} ms", new Object[] {
+                    gridSize, table.entries.length, table.memoryBytes() / 1024, table.buildNanos / 1_000_000 });
+            TABLES[gridSize] = table;
+        }
+        return Optional.of(TABLES[gridSize]);
+    }
+
+    public int lineLength() {
+        return lineLength;
+    }
+
+    public long memoryBytes() {
+        return (long) entries.length * Integer.BYTES;
+    }
+
+    public long buildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Returns the packed entry for a line key, or {@link #UNSUPPORTED}.
+     */
+    int entry(int key) {
+        return entries[key];
+    }
+
+    static int resultKey(int entry, int lineLength) {
+        return entry & ((1 << (BITS_PER_CELL * lineLength)) - 1);
+    }
+
+    static int mergeMask(int entry, int lineLength) {
+        return entry >>> (BITS_PER_CELL * lineLength);
+    }
+
+    static int exponentAt(int key, int position) {
+        return key >>> (position * BITS_PER_CELL) & MAX_EXPONENT;
+    }
+
+    private int computeEntry(int key, int[] exponents) {
+        var target = 0;
+        var mergeable = 0;
+        var mergeMask = 0;
+        for (int position = 0; position < lineLength; position++) {
+            exponents[position] = 0;
+        }
+
+        for (int position = 0; position < lineLength; position++) {
+            var exponent = exponentAt(key, position);
+            if (exponent == 0) {
+                continue;
+            }
+            if (exponent == mergeable) {
+                if (exponent == MAX_EXPONENT) {
+                    return UNSUPPORTED;
+                }
+                exponents[target - 1] = exponent + 1;
+                mergeMask |= 1 << (target - 1);
+                mergeable = 0;
+            } else {
+                exponents[target++] = exponent;
+                mergeable = exponent;
+            }
+        }
+
+        var result = 0;
+        for (int position = 0; position < lineLength; position++) {
+            result |= exponents[position] << (position * BITS_PER_CELL);
+        }
+        return result | mergeMask << (BITS_PER_CELL * lineLength);
+    }
+
+    private static boolean[] enabledGridSizes() {
+        if (enabledGridSizes == null) {
+            enabledGridSizes = parseGridSizes(System.getProperty(GRID_SIZES_PROPERTY, DEFAULT_GRID_SIZES));
+        }
+        return enabledGridSizes;
+    }
+
+    static boolean[] parseGridSizes(String value) {
+        var enabled = new boolean[MAX_LINE_LENGTH + 1];
+        for (var token : value.split(",")) {
+            if (token.isBlank()) {
+                continue;
+            }
+            try {
+                var gridSize = Integer.parseInt(token.trim());
+                if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > MAX_LINE_LENGTH) {
+                    throw new IllegalArgumentException("Line tables are only available for grid sizes %s to %s."
+                            .formatted(GridOperator.MIN_GRID_SIZE, MAX_LINE_LENGTH));
+                }
+                enabled[gridSize] = true;
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Ignoring line table grid size ''{0}''", token);
+            }
+        }
+        return enabled;
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.brunoborges.fx2048.game;
+
+
+/**
+ * Chooses where the tile that follows every move appears, and its value.
+ * <p>
+ * {@link #RANDOM} is the classic rule of {@link BitBoardEngine#addRandomTile()};
+ * other strategies may pick the spawn by searching the board.
+ */
+@FunctionalInterface
+public interface SpawnStrategy {
+
+    SpawnStrategy RANDOM = BitBoardEngine::addRandomTile;
+
+    /**
+     * Adds one tile to an empty cell of {@code board}.
+     *
+     * @return the index of the filled cell, or {@code -1} when the grid is full
+     */
+    int spawn(BitBoardEngine board);
+}
@@ -0,0 +1,103 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Reproducible random source for tile spawns.
+ * <p>
+ * Every draw is the SplitMix64 mix of {@code seed + position * gamma}, and the
+ * bounded, {@code float} and {@code double} variants are implemented here
+ * rather than inherited, so a game started from the same seed spawns the same
+ * tiles on every machine and JDK. Because each draw only depends on the seed and
+ * its position, a stream can be resumed with {@link #at(long, long)}, and
+ * {@link #split()} hands out independent streams for worker threads without any
+ * shared state. A single stream is not thread safe.
+ */
+public final class SpawnStream implements RandomGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+    private long position;
+
+    private SpawnStream(long seed, long position) {
+        this.seed = seed;
+        this.position = position;
+    }
+
+    public static SpawnStream seeded(long seed) {
+        return new SpawnStream(seed, 0);
+    }
+
+    /**
+     * Resumes the stream of {@code seed} after {@code position} draws.
+     */
+    public static SpawnStream at(long seed, long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position must not be negative");
+        }
+        return new SpawnStream(seed, position);
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of values drawn so far.
+     */
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(seed + ++position * GOLDEN_GAMMA);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive");
+        }
+
+        var r = nextInt() >>> 1;
+        var m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (var u = r; u - (r = u % bound) + m < 0; u = nextInt() >>> 1) {
+            // reject values from the incomplete last range to keep the result uniform
+        }
+        return r;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextInt() >>> 8) * 0x1.0p-24f;
+    }
+
+    /**
+     * Draws a seed from this stream and returns a new, independent stream for it.
+     */
+    public SpawnStream split() {
+        return new SpawnStream(mix64(nextLong() ^ GOLDEN_GAMMA), 0);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
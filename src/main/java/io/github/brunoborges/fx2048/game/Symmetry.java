@@ -0,0 +1,226 @@
+package io.github.brunoborges.fx2048.game;
+
+
+/**
+ * The eight rotations and reflections of a square grid.
+ * <p>
+ * Every transform maps the rules onto themselves: moving a board in some
+ * direction and transforming the result gives the same board, and the same
+ * points, as transforming the board first and moving it in the transformed
+ * direction. {@link #canonicalize(BoardState)} uses this to reduce a board to
+ * one representative of its eight variants, so caches and statistics keyed on
+ * boards can store a position once for all of them.
+ */
+public enum Symmetry {
+
+    IDENTITY(1, 0, 0, 1),
+    ROTATE_90(0, -1, 1, 0),
+    ROTATE_180(-1, 0, 0, -1),
+    ROTATE_270(0, 1, -1, 0),
+    FLIP_HORIZONTAL(-1, 0, 0, 1),
+    FLIP_VERTICAL(1, 0, 0, -1),
+    TRANSPOSE(0, 1, 1, 0),
+    ANTI_TRANSPOSE(0, -1, -1, 0);
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int FAST_PATH_GRID_SIZE = 4;
+    private static final int FAST_PATH_MAX_EXPONENT = 15;
+
+    // (x, y) -> (xx * x + xy * y, yx * x + yy * y), shifted back onto the grid
+    private final int xx;
+    private final int xy;
+    private final int yx;
+    private final int yy;
+
+    Symmetry(int xx, int xy, int yx, int yy) {
+        this.xx = xx;
+        this.xy = xy;
+        this.yx = yx;
+        this.yy = yy;
+    }
+
+    /**
+     * A board mapped to the representative of its symmetry class.
+     *
+     * @param board the representative
+     * @param symmetry the transform that maps the original board onto {@code board}
+     */
+    public record CanonicalBoard(BoardState board, Symmetry symmetry) {
+
+        /**
+         * Maps a move chosen on the representative back to the original board.
+         */
+        public Direction toOriginal(Direction direction) {
+            return symmetry.inverse().apply(direction);
+        }
+    }
+
+    public Symmetry inverse() {
+        return switch (this) {
+            case ROTATE_90 -> ROTATE_270;
+            case ROTATE_270 -> ROTATE_90;
+            default -> this;
+        };
+    }
+
+    public int applyX(int x, int y, int gridSize) {
+        var last = gridSize - 1;
+        return xx * x + xy * y + (xx + xy < 0 ? last : 0);
+    }
+
+    public int applyY(int x, int y, int gridSize) {
+        var last = gridSize - 1;
+        return yx * x + yy * y + (yx + yy < 0 ? last : 0);
+    }
+
+    public Location apply(Location location, int gridSize) {
+        return new Location(applyX(location.x(), location.y(), gridSize), applyY(location.x(), location.y(), gridSize));
+    }
+
+    public Direction apply(Direction direction) {
+        var x = xx * direction.getX() + xy * direction.getY();
+        var y = yx * direction.getX() + yy * direction.getY();
+        for (var candidate : DIRECTIONS) {
+            if (candidate.getX() == x && candidate.getY() == y) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No direction for " + x + "," + y);
+    }
+
+    public BoardState apply(BoardState board) {
+        var gridSize = board.gridSize();
+        var words = new long[(board.cellCount() + 7) / 8];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                var cell = applyX(x, y, gridSize) * gridSize + applyY(x, y, gridSize);
+                words[cell >>> 3] |= (long) board.exponentAt(x, y) << ((cell & 7) << 3);
+            }
+        }
+        return new BoardState(gridSize, words);
+    }
+
+    /**
+     * Returns the smallest variant of {@code board}, comparing cells from the
+     * last one down, together with the transform that produces it. All eight variants of a
+     * board get the same representative. 4x4 boards with tiles up to 2^15 are
+     * transformed with bit operations on a 64-bit nibble board.
+     */
+    public static CanonicalBoard canonicalize(BoardState board) {
+        if (board.gridSize() == FAST_PATH_GRID_SIZE) {
+            var nibbles = toNibbles(board);
+            if (nibbles != -1) {
+                return canonicalizeNibbles(nibbles);
+            }
+        }
+
+        var best = board;
+        var bestSymmetry = IDENTITY;
+        for (var symmetry : values()) {
+            if (symmetry == IDENTITY) {
+                continue;
+            }
+            var candidate = symmetry.apply(board);
+            if (candidate.compareWords(best) < 0) {
+                best = candidate;
+                bestSymmetry = symmetry;
+            }
+        }
+        return new CanonicalBoard(best, bestSymmetry);
+    }
+
+    /**
+     * Returns the smallest of the eight variants of a 4x4 nibble board, where
+     * nibble {@code x * 4 + y} holds the exponent of cell (x, y).
+     */
+    public static long canonicalNibbles(long nibbles) {
+        var flipped = flipRows(nibbles);
+        var transposed = transposeNibbles(nibbles);
+        var transposedFlipped = flipRows(transposed);
+        var best = min(min(nibbles, flipColumns(nibbles)), min(flipped, flipColumns(flipped)));
+        return min(best, min(min(transposed, flipColumns(transposed)),
+                min(transposedFlipped, flipColumns(transposedFlipped))));
+    }
+
+    private static long min(long a, long b) {
+        return Long.compareUnsigned(a, b) <= 0 ? a : b;
+    }
+
+    /**
+     * Packs a 4x4 engine into a nibble board, or returns {@code -1} when a
+     * tile is above 2^15.
+     */
+    public static long toNibbles(BitBoardEngine board) {
+        var nibbles = 0L;
+        for (int cell = 0; cell < 16; cell++) {
+            var exponent = board.exponentAt(cell);
+            if (exponent > FAST_PATH_MAX_EXPONENT) {
+                return -1;
+            }
+            nibbles |= (long) exponent << (cell << 2);
+        }
+        return nibbles;
+    }
+
+    private static long toNibbles(BoardState board) {
+        var nibbles = 0L;
+        for (int cell = 0; cell < 16; cell++) {
+            var exponent = board.exponentAt(cell);
+            if (exponent > FAST_PATH_MAX_EXPONENT) {
+                return -1;
+            }
+            nibbles |= (long) exponent << (cell << 2);
+        }
+        return nibbles;
+    }
+
+    private static CanonicalBoard canonicalizeNibbles(long nibbles) {
+        var transposed = transposeNibbles(nibbles);
+        var variants = new long[] { nibbles, flipColumns(nibbles), flipRows(nibbles), flipColumns(flipRows(nibbles)),
+                transposed, flipColumns(transposed), flipRows(transposed), flipColumns(flipRows(transposed)) };
+        var symmetries = new Symmetry[] { IDENTITY, FLIP_HORIZONTAL, FLIP_VERTICAL, ROTATE_180,
+                TRANSPOSE, ROTATE_90, ROTATE_270, ANTI_TRANSPOSE };
+        var best = 0;
+        for (int i = 1; i < variants.length; i++) {
+            if (Long.compareUnsigned(variants[i], variants[best]) < 0) {
+                best = i;
+            }
+        }
+
+        var words = new long[2];
+        for (int cell = 0; cell < 16; cell++) {
+            words[cell >>> 3] |= (variants[best] >>> (cell << 2) & 0xF) << ((cell & 7) << 3);
+        }
+        return new CanonicalBoard(new BoardState(FAST_PATH_GRID_SIZE, words), symmetries[best]);
+    }
+
+    /**
+     * Swaps x and y.
+     */
+    private static long transposeNibbles(long nibbles) {
+        var a1 = nibbles & 0xF0F00F0FF0F00F0FL;
+        var a2 = nibbles & 0x0000F0F00000F0F0L;
+        var a3 = nibbles & 0x0F0F00000F0F0000L;
+        var a = a1 | (a2 << 12) | (a3 >>> 12);
+        var b1 = a & 0xFF00FF0000FF00FFL;
+        var b2 = a & 0x00FF00FF00000000L;
+        var b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /**
+     * Maps x to 3 - x by reversing the four 16-bit columns.
+     */
+    private static long flipColumns(long nibbles) {
+        return (nibbles >>> 48) | ((nibbles >>> 16) & 0xFFFF0000L)
+                | ((nibbles << 16) & 0xFFFF00000000L) | (nibbles << 48);
+    }
+
+    /**
+     * Maps y to 3 - y by reversing the nibbles of every column.
+     */
+    private static long flipRows(long nibbles) {
+        var swappedBytes = ((nibbles & 0x00FF00FF00FF00FFL) << 8) | ((nibbles >>> 8) & 0x00FF00FF00FF00FFL);
+        return ((swappedBytes & 0x0F0F0F0F0F0F0F0FL) << 4) | ((swappedBytes >>> 4) & 0x0F0F0F0F0F0F0F0FL);
+    }
+}
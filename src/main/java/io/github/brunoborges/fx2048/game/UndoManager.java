@@ -3,7 +3,6 @@ package io.github.brunoborges.fx2048.game;
 
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -27,10 +26,11 @@ public final class UndoManager {
         earnedMilestones.clear();
         remainingUndos = INITIAL_UNDOS;
     }
-    public void resetForRestoredBoard(Map<Location, Integer> snapshot) {
+    public void resetForRestoredBoard(BoardState snapshot) {
         resetForNewGame();
+        var maxValue = snapshot.maxValue();
         var reachedMilestones = EARN_MILESTONES.stream()
-                .filter(milestone -> snapshot.values().stream().anyMatch(value -> value != null && value >= milestone))
+                .filter(milestone -> maxValue >= milestone)
                 .toList();
         reachedMilestones.forEach(earnedMilestones::add);
         remainingUndos = Math.min(MAX_UNDOS, remainingUndos + reachedMilestones.size());
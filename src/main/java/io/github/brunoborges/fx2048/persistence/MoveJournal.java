@@ -0,0 +1,308 @@
+package io.github.brunoborges.fx2048.persistence;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GameRecord;
+import io.github.brunoborges.fx2048.game.GridOperator;
+
+/**
+ * An append-only journal of the moves played since the last session checkpoint.
+ * <p>
+ * Instead of rewriting the whole session after every move, {@link #append}
+ * adds a {@value #RECORD_BYTES} byte record to {@code game2048_<n>.journal}:
+ * the direction, the spawned tile (its exponent and cell, or none when the
+ * grid was full) and the elapsed time. Every
+ * {@value #DEFAULT_COMPACTION_INTERVAL} moves, or as set by
+ * {@value #COMPACTION_INTERVAL_PROPERTY}, the journal is compacted: the
+ * current session is saved through {@link SessionManager} as a checkpoint and
+ * the journal is discarded.
+ * <p>
+ * The journal header holds the CRC32 of the checkpoint it follows.
+ * {@link #recover()} restores the checkpoint and replays the journal through a
+ * {@link GameModel} only when that checksum matches, so a journal left behind
+ * by a crash between saving a checkpoint and discarding the journal is
+ * ignored, since the checkpoint already includes its moves. A record torn by a
+ * crash while appending is dropped; at most the last move is lost. Recovery
+ * replays at most one compaction interval of moves.
+ * <p>
+ * Methods are synchronized; a {@link SessionWriter} calls them on its thread.
+ */
+public final class MoveJournal implements AutoCloseable {
+
+    public static final String COMPACTION_INTERVAL_PROPERTY = "fx2048.journal.compactionInterval";
+    public static final int DEFAULT_COMPACTION_INTERVAL = 256;
+
+    static final int MAGIC = 0x46324D4A; // "F2MJ"
+    static final int VERSION = 1;
+    // magic, version, grid size and the checkpoint checksum
+    static final int HEADER_BYTES = Integer.BYTES + 2 + Integer.BYTES;
+    // direction, spawned exponent, spawned cell and elapsed nanoseconds
+    static final int RECORD_BYTES = 2 + Short.BYTES + Long.BYTES;
+
+    private static final Logger LOGGER = Logger.getLogger(MoveJournal.class.getName());
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    public final String journalFilename;
+    private final SessionManager sessionManager;
+    private final int gridSize;
+    private final int compactionInterval;
+    private final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + RECORD_BYTES);
+    private FileChannel channel;
+    // whether this journal wrote or found the journal file, which checkpoints then delete
+    private boolean onDisk;
+    private long checkpointChecksum = SessionManager.NO_CHECKSUM;
+    private int checkpointMoves;
+    private int records;
+
+    public MoveJournal(SessionManager sessionManager) {
+        this(sessionManager, Math.max(1, Integer.getInteger(COMPACTION_INTERVAL_PROPERTY, DEFAULT_COMPACTION_INTERVAL)));
+    }
+
+    MoveJournal(SessionManager sessionManager, int compactionInterval) {
+        if (compactionInterval < 1) {
+            throw new IllegalArgumentException("The compaction interval must be positive");
+        }
+        this.sessionManager = sessionManager;
+        this.gridSize = sessionManager.gridSize();
+        this.compactionInterval = compactionInterval;
+        this.journalFilename = "game2048_" + gridSize + ".journal";
+    }
+
+    /**
+     * Saves {@code session} as the new checkpoint and discards the journal.
+     *
+     * @return whether the checkpoint was saved
+     */
+    public synchronized boolean checkpoint(SessionManager.SessionData session) {
+        boolean saved;
+        synchronized (sessionManager) {
+            saved = sessionManager.saveSession(session.board(), session.score(), session.time(),
+                    session.moveCount());
+            checkpointChecksum = saved ? sessionManager.lastChecksum() : SessionManager.NO_CHECKSUM;
+        }
+        checkpointMoves = session.moveCount();
+        if (!saved) {
+            // the previous checkpoint and its journal are still consistent
+            return false;
+        }
+        discard();
+        return true;
+    }
+
+    /**
+     * Records {@code step}, the last move played. {@code after}, the session
+     * once the move has been played, is saved as a checkpoint instead when the
+     * journal is full, when there is no checkpoint to follow, or when the move
+     * count shows that the move does not directly follow the journal, as after
+     * an undo or moves played with another auto-save mode.
+     *
+     * @return whether the move was recorded
+     */
+    public synchronized boolean append(GameRecord.Step step, SessionManager.SessionData after) {
+        if (checkpointChecksum == SessionManager.NO_CHECKSUM || records >= compactionInterval
+                || after.moveCount() != checkpointMoves + records + 1) {
+            return checkpoint(after);
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(journalPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                onDisk = true;
+                buffer.clear();
+                putHeader();
+            } else {
+                buffer.clear();
+            }
+            buffer.put((byte) step.direction().ordinal());
+            if (step.spawn() == null) {
+                buffer.put((byte) 0);
+                buffer.putShort((short) -1);
+            } else {
+                buffer.put((byte) Integer.numberOfTrailingZeros(step.spawnValue()));
+                buffer.putShort((short) (step.spawn().x() * gridSize + step.spawn().y()));
+            }
+            buffer.putLong(after.time());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            records++;
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to append to " + journalFilename + "; saving a checkpoint", e);
+            closeChannel();
+            return checkpoint(after);
+        }
+    }
+
+    /**
+     * Makes the next {@link #append} save a checkpoint; the files on disk are
+     * left as they are until then.
+     */
+    public synchronized void restart() {
+        closeChannel();
+        checkpointChecksum = SessionManager.NO_CHECKSUM;
+        records = 0;
+    }
+
+    /**
+     * Restores the last checkpoint and replays the moves journaled after it.
+     * Later appends continue the journal from the last valid move.
+     */
+    public synchronized Optional<SessionManager.SessionData> recover() {
+        closeChannel();
+        Optional<SessionManager.SessionData> restored;
+        synchronized (sessionManager) {
+            restored = sessionManager.restoreSession();
+            checkpointChecksum = sessionManager.lastChecksum();
+        }
+        records = 0;
+        if (restored.isEmpty() || checkpointChecksum == SessionManager.NO_CHECKSUM) {
+            return restored;
+        }
+        checkpointMoves = restored.get().moveCount();
+
+        try (var journal = FileChannel.open(journalPath(), StandardOpenOption.READ)) {
+            onDisk = true;
+            buffer.clear().limit(HEADER_BYTES);
+            if (!readFully(journal) || !readHeader()) {
+                LOGGER.log(Level.INFO, "Ignoring {0}, which does not follow the saved session", journalFilename);
+                discard();
+                return restored;
+            }
+            var session = replay(restored.get(), journal);
+            // drop what could not be replayed, such as a record torn by a crash
+            channel = FileChannel.open(journalPath(), StandardOpenOption.WRITE);
+            channel.truncate(HEADER_BYTES + (long) records * RECORD_BYTES);
+            channel.position(channel.size());
+            LOGGER.log(Level.INFO, "Replayed {0} journaled moves", records);
+            return Optional.of(session);
+        } catch (NoSuchFileException e) {
+            return restored;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to read " + journalFilename + "; restoring the checkpoint only", e);
+            closeChannel();
+            records = 0;
+            return restored;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    private SessionManager.SessionData replay(SessionManager.SessionData checkpoint, FileChannel journal)
+            throws IOException {
+        var model = new GameModel(new GridOperator(gridSize));
+        model.restoreSnapshot(checkpoint.board());
+        // the journaled spawn of the record being replayed
+        var spawn = new int[2];
+        model.setSpawnStrategy(engine -> {
+            if (engine.exponentAt(spawn[0]) != 0) {
+                return -1;
+            }
+            engine.setExponent(spawn[0], spawn[1]);
+            return spawn[0];
+        });
+
+        var score = checkpoint.score();
+        var time = checkpoint.time();
+        while (true) {
+            buffer.clear().limit(RECORD_BYTES);
+            if (!readFully(journal)) {
+                break;
+            }
+            buffer.flip();
+            var direction = buffer.get();
+            var exponent = buffer.get();
+            var cell = buffer.getShort();
+            var elapsed = buffer.getLong();
+            if (direction < 0 || direction >= DIRECTIONS.length) {
+                break;
+            }
+            var points = model.play(DIRECTIONS[direction]);
+            if (points == BitBoardEngine.NO_MOVE) {
+                break;
+            }
+            if (exponent != 0) {
+                if (exponent < 0 || cell < 0 || cell >= gridSize * gridSize) {
+                    break;
+                }
+                spawn[0] = cell;
+                spawn[1] = exponent;
+                if (model.addRandomTile().isEmpty()) {
+                    break;
+                }
+            }
+            score += points;
+            time = Math.max(time, elapsed);
+            records++;
+        }
+        return new SessionManager.SessionData(model.snapshot(), score, time, checkpoint.moveCount() + records);
+    }
+
+    private void putHeader() {
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) gridSize);
+        buffer.putInt((int) checkpointChecksum);
+    }
+
+    private boolean readHeader() {
+        buffer.flip();
+        return buffer.getInt() == MAGIC && buffer.get() == VERSION && buffer.get() == gridSize
+                && buffer.getInt() == (int) checkpointChecksum;
+    }
+
+    private boolean readFully(FileChannel journal) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (journal.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void discard() {
+        closeChannel();
+        records = 0;
+        if (!onDisk) {
+            return;
+        }
+        onDisk = false;
+        try {
+            Files.deleteIfExists(journalPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to delete " + journalFilename, e);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to close " + journalFilename, e);
+        }
+        channel = null;
+    }
+
+    private Path journalPath() {
+        return UserSettings.LOCAL.resolve(journalFilename);
+    }
+}
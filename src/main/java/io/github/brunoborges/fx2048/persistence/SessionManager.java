@@ -1,69 +1,241 @@
 package io.github.brunoborges.fx2048.persistence;
 
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import io.github.brunoborges.fx2048.game.BoardState;
 import io.github.brunoborges.fx2048.game.GridOperator;
-import io.github.brunoborges.fx2048.game.Location;
-import io.github.brunoborges.fx2048.game.Tile;
 
 /**
+ * Saves and restores the game in progress, one file per grid size.
+ * <p>
+ * A session is a fixed-size binary file of {@code 26 + gridSize^2} bytes,
+ * read and written with a single buffer:
+ * <pre>
+ * int   magic, "F2SS"
+ * byte  format version
+ * byte  grid size
+ * byte  tile exponent of every cell, column-major, 0 for an empty cell
+ * int   score
+ * long  elapsed time in nanoseconds
+ * int   move count
+ * int   CRC32 of all the bytes above
+ * </pre>
+ * Sessions saved as {@code .properties} files by earlier versions are still
+ * restored when there is no binary session, and the next save replaces them
+ * with the binary format.
+ * <p>
+ * A session is written to a temporary file that then replaces the previous
+ * one, so a crash while saving leaves the previous session intact. Saving and
+ * restoring are synchronized, so sessions can be saved by a
+ * {@link SessionWriter} thread while the JavaFX thread restores them.
+ *
  * @author Jose Pereda
  */
 public class SessionManager {
 
     private static final Logger LOGGER = Logger.getLogger(SessionManager.class.getName());
 
+    static final int MAGIC = 0x46325353; // "F2SS"
+    static final int VERSION = 1;
+    // magic, version and grid size before the cells; score, time, moves and checksum after them
+    private static final int HEADER_BYTES = Integer.BYTES + 2;
+    private static final int TRAILER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int MAX_EXPONENT = Integer.SIZE - 2;
+    static final long NO_CHECKSUM = -1;
+
+    public final String sessionFilename;
     public final String propertiesFilename;
     private final Properties props = new Properties();
     private final GridOperator gridOperator;
-    public record SessionData(Map<Location, Integer> gridValues, int score, long time, int moveCount) {}
+    private final ByteBuffer buffer;
+    private final CRC32 checksum = new CRC32();
+    private long lastChecksum = NO_CHECKSUM;
+    public record SessionData(BoardState board, int score, long time, int moveCount) {}
 
     public SessionManager(GridOperator gridOperator) {
         this.gridOperator = gridOperator;
+        this.sessionFilename = "game2048_" + gridOperator.getGridSize() + ".session";
         this.propertiesFilename = "game2048_" + gridOperator.getGridSize() + ".properties";
+        this.buffer = ByteBuffer.allocate(sessionBytes(gridOperator.getGridSize()));
     }
-    public boolean saveSession(Map<Location, Integer> gridValues, Integer score, Long time, Integer moveCount) {
-        props.clear();
-        gridOperator.traverseGrid((x, y) -> {
-            var tileValue = gridValues.get(new Location(x, y));
-            props.setProperty("Location_" + x + "_" + y, Integer.toString(tileValue == null ? 0 : tileValue));
-            return 0;
+
+    static int sessionBytes(int gridSize) {
+        return HEADER_BYTES + gridSize * gridSize + TRAILER_BYTES;
+    }
+
+    int gridSize() {
+        return gridOperator.getGridSize();
+    }
+
+    /**
+     * Returns the CRC32 of the binary session last saved or restored, or
+     * {@link #NO_CHECKSUM} when the last save or restore failed or read a
+     * legacy session. Callers synchronize on this manager around the save or
+     * restore and this call.
+     */
+    synchronized long lastChecksum() {
+        return lastChecksum;
+    }
+
+    public synchronized boolean saveSession(BoardState board, Integer score, Long time, Integer moveCount) {
+        lastChecksum = NO_CHECKSUM;
+        encode(new SessionData(board, score, time, moveCount));
+        var path = sessionPath();
+        var temporary = path.resolveSibling(sessionFilename + ".tmp");
+        try {
+            try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastChecksum = checksum.getValue();
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Unable to save session: " + sessionFilename, e);
+            return false;
+        }
+    }
+
+    public synchronized Optional<SessionData> restoreSession() {
+        lastChecksum = NO_CHECKSUM;
+        buffer.clear();
+        try (var channel = FileChannel.open(sessionPath(), StandardOpenOption.READ)) {
+            if (channel.size() != buffer.capacity()) {
+                throw new IllegalArgumentException("Session file has %d bytes instead of %d"
+                        .formatted(channel.size(), buffer.capacity()));
+            }
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // fill the buffer
+            }
+            buffer.flip();
+            var session = decode();
+            lastChecksum = checksum.getValue();
+            return Optional.of(session);
+        } catch (NoSuchFileException e) {
+            return restoreLegacySession();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Unable to read session: " + sessionFilename, e);
+            return Optional.empty();
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid saved session: " + sessionFilename, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Fills the buffer with the binary form of {@code session}, ready to be written.
+     */
+    ByteBuffer encode(SessionData session) {
+        var board = session.board();
+        if (board.gridSize() != gridOperator.getGridSize()) {
+            throw new IllegalArgumentException("Board of size %d cannot be saved as a %dx%d session"
+                    .formatted(board.gridSize(), gridOperator.getGridSize(), gridOperator.getGridSize()));
+        }
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) board.gridSize());
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            buffer.put((byte) board.exponentAt(cell));
+        }
+        buffer.putInt(session.score());
+        buffer.putLong(session.time());
+        buffer.putInt(session.moveCount());
+        checksum.reset();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        return buffer.flip();
+    }
+
+    /**
+     * Reads the session held in the buffer.
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a valid session of this grid size
+     */
+    SessionData decode() {
+        if (buffer.remaining() != buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated session");
+        }
+        checksum.reset();
+        checksum.update(buffer.array(), 0, buffer.capacity() - Integer.BYTES);
+        if ((int) checksum.getValue() != buffer.getInt(buffer.capacity() - Integer.BYTES)) {
+            throw new IllegalArgumentException("Session checksum mismatch");
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a session file");
+        }
+        var version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported session version " + version);
+        }
+        var gridSize = buffer.get();
+        if (gridSize != gridOperator.getGridSize()) {
+            throw new IllegalArgumentException("Session of a %dx%d grid".formatted(gridSize, gridSize));
+        }
+
+        var cells = buffer.position();
+        var board = BoardState.of(gridSize, (x, y) -> {
+            var exponent = buffer.get(cells + x * gridSize + y);
+            if (exponent < 0 || exponent > MAX_EXPONENT) {
+                throw new IllegalArgumentException("Invalid tile exponent: " + exponent);
+            }
+            return exponent == 0 ? 0 : 1 << exponent;
         });
-        props.setProperty("score", score.toString());
-        props.setProperty("time", time.toString());
-        props.setProperty("moves", moveCount.toString());
-        return UserSettings.LOCAL.store(props, propertiesFilename);
+        buffer.position(cells + gridSize * gridSize);
+
+        var score = requireNonNegative(buffer.getInt(), "score");
+        var time = buffer.getLong();
+        if (time < 0) {
+            throw new IllegalArgumentException("time must not be negative");
+        }
+        var moveCount = requireNonNegative(buffer.getInt(), "moves");
+        return new SessionData(board, score, time, moveCount);
     }
-    public Optional<SessionData> restoreSession() {
+
+    private Path sessionPath() {
+        return UserSettings.LOCAL.resolve(sessionFilename);
+    }
+
+    /**
+     * Restores a session saved by earlier versions, one text property per cell.
+     */
+    private Optional<SessionData> restoreLegacySession() {
         props.clear();
         if (!UserSettings.LOCAL.restore(props, propertiesFilename)) {
             return Optional.empty();
         }
 
         try {
-            var restoredValues = new HashMap<Location, Integer>();
-            gridOperator.traverseGrid((x, y) -> {
-                var val = requireProperty("Location_" + x + "_" + y);
-                var tileValue = Integer.parseInt(val);
-                var location = new Location(x, y);
-                restoredValues.put(location, 0);
+            var restoredBoard = BoardState.of(gridOperator.getGridSize(), (x, y) -> {
+                var tileValue = Integer.parseInt(requireProperty("Location_" + x + "_" + y));
                 if (tileValue != 0) {
                     validateTileValue(tileValue);
-                    restoredValues.put(location, tileValue);
                 }
-                return 0;
+                return tileValue;
             });
 
             var score = parseNonNegativeInt(requireProperty("score"), "score");
             var time = parseNonNegativeLong(requireProperty("time"), "time");
             var moveCount = parseNonNegativeInt(props.getProperty("moves", "0"), "moves");
 
-            return Optional.of(new SessionData(restoredValues, score, time, moveCount));
+            LOGGER.log(Level.INFO, "Restored legacy session {0}; it is saved as {1} from now on",
+                    new Object[] { propertiesFilename, sessionFilename });
+            return Optional.of(new SessionData(restoredBoard, score, time, moveCount));
         } catch (IllegalArgumentException e) {
             LOGGER.log(Level.WARNING, "Invalid saved session: " + propertiesFilename, e);
             return Optional.empty();
@@ -79,11 +251,14 @@ public class SessionManager {
     }
 
     private int parseNonNegativeInt(String value, String propertyName) {
-        var parsedValue = Integer.parseInt(value);
-        if (parsedValue < 0) {
+        return requireNonNegative(Integer.parseInt(value), propertyName);
+    }
+
+    private int requireNonNegative(int value, String propertyName) {
+        if (value < 0) {
             throw new IllegalArgumentException(propertyName + " must not be negative");
         }
-        return parsedValue;
+        return value;
     }
 
     private long parseNonNegativeLong(String value, String propertyName) {
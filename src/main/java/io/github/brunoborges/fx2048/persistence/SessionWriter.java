@@ -0,0 +1,145 @@
+package io.github.brunoborges.fx2048.persistence;
+
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import io.github.brunoborges.fx2048.game.GameRecord;
+
+/**
+ * Saves sessions through a {@link SessionManager} on a background thread, so
+ * a slow disk never delays the JavaFX thread.
+ * <p>
+ * Sessions submitted while a save is in progress are coalesced: once it
+ * completes, only the latest of them is saved. Every save is a
+ * {@link MoveJournal} checkpoint, and moves passed to {@link #journal} are
+ * appended to the journal in the order they were played, never coalesced.
+ * {@link #flush()} waits until everything submitted has been written and
+ * {@link #close()} flushes before stopping the thread, so the last session is
+ * on disk when the game exits.
+ */
+public final class SessionWriter implements AutoCloseable {
+
+    static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final Logger LOGGER = Logger.getLogger(SessionWriter.class.getName());
+
+    private final MoveJournal moveJournal;
+    private final AtomicReference<SessionManager.SessionData> pending = new AtomicReference<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        var thread = new Thread(task, "fx2048-session-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean lastSaveSucceeded = true;
+
+    public SessionWriter(SessionManager sessionManager) {
+        this(new MoveJournal(sessionManager));
+    }
+
+    SessionWriter(MoveJournal moveJournal) {
+        this.moveJournal = moveJournal;
+    }
+
+    /**
+     * Queues {@code session} to be saved, replacing any session that is still waiting.
+     */
+    public void submit(SessionManager.SessionData session) {
+        if (pending.getAndSet(session) != null) {
+            // the queued save has not started yet and will pick this session up
+            return;
+        }
+        try {
+            executor.execute(this::savePending);
+        } catch (RejectedExecutionException e) {
+            pending.set(null);
+            LOGGER.log(Level.WARNING, "Session writer is closed; session not saved");
+        }
+    }
+
+    /**
+     * Queues {@code step}, the move just played, to be appended to the journal;
+     * {@code after} is the session once it was played, saved instead when the
+     * journal is due for compaction.
+     */
+    public void journal(GameRecord.Step step, SessionManager.SessionData after) {
+        // a session still waiting must be saved before this move, not replaced by a later one
+        var earlier = pending.getAndSet(null);
+        try {
+            executor.execute(() -> {
+                if (earlier != null) {
+                    lastSaveSucceeded = moveJournal.checkpoint(earlier);
+                }
+                lastSaveSucceeded = moveJournal.append(step, after);
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.WARNING, "Session writer is closed; move not journaled");
+        }
+    }
+
+    /**
+     * Makes the next journaled move save a checkpoint first, after the game
+     * was replaced by a new or restored one.
+     */
+    public void restartJournal() {
+        try {
+            executor.execute(moveJournal::restart);
+        } catch (RejectedExecutionException e) {
+            // closed; nothing more will be journaled
+        }
+    }
+
+    /**
+     * Flushes, then restores the saved session and replays the moves journaled after it.
+     */
+    public Optional<SessionManager.SessionData> restore() {
+        flush();
+        return moveJournal.recover();
+    }
+
+    /**
+     * Waits until every submitted session has been saved.
+     *
+     * @return whether the last save succeeded
+     */
+    public boolean flush() {
+        try {
+            executor.submit(() -> {
+            }).get(FLUSH_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            return lastSaveSucceeded;
+        } catch (RejectedExecutionException e) {
+            return lastSaveSucceeded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.log(Level.WARNING, "Session writer did not finish within " + FLUSH_TIMEOUT, e);
+            return false;
+        }
+    }
+
+    /**
+     * Flushes and stops the writer thread; later submissions are dropped.
+     */
+    @Override
+    public void close() {
+        flush();
+        executor.shutdown();
+        moveJournal.close();
+    }
+
+    private void savePending() {
+        var session = pending.getAndSet(null);
+        if (session != null) {
+            lastSaveSucceeded = moveJournal.checkpoint(session);
+        }
+    }
+}
@@ -2,19 +2,42 @@ package io.github.brunoborges.fx2048.persistence;
 
 
 import java.io.*;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import io.github.brunoborges.fx2048.game.GridOperator;
 import io.github.brunoborges.fx2048.settings.AnimationSpeed;
 import io.github.brunoborges.fx2048.settings.AutoSaveMode;
+import io.github.brunoborges.fx2048.settings.GameMode;
 
 /**
  * UserSettings
+ * <p>
+ * Settings are kept in memory as an immutable {@link Snapshot}, so reading
+ * them, as the game does on every move, never touches the disk. A
+ * {@link WatchService} drops the snapshot when {@code settings.properties}
+ * changes on disk, and the next read loads it again.
+ * <p>
+ * Changes are committed as a whole snapshot: the setters, {@link #update}, or
+ * a {@link Transaction} from {@link #edit()} that stages several changes.
+ * A commit takes effect in memory at once and is written on a background
+ * thread through a temporary file and an atomic move, so the settings file
+ * always holds either every change of a commit or none of them.
  * 
  * @author Bruno Borges
  */
@@ -27,7 +50,18 @@ public enum UserSettings {
     private static final String GRID_SIZE_KEY = "gridSize";
     private static final String ANIMATION_SPEED_KEY = "animationSpeed";
     private static final String AUTO_SAVE_KEY = "autoSave";
+    private static final String GAME_MODE_KEY = "gameMode";
     private final File userGameFolder;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        var thread = new Thread(task, "fx2048-settings-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Snapshot snapshot;
+    private int pendingWrites;
+    // every property last loaded or written, including ones this version does not know
+    private Properties loadedSettings = new Properties();
+    private boolean watching;
 
     UserSettings() {
         var userHome = System.getProperty("user.home");
@@ -49,6 +83,13 @@ public enum UserSettings {
         }
     }
 
+    /**
+     * Returns the path of a file in the settings directory.
+     */
+    public Path resolve(String fileName) {
+        return userGameFolder.toPath().resolve(fileName);
+    }
+
     public boolean store(Properties data, String fileName) {
         try (var writer = new FileWriter(new File(userGameFolder, fileName))) {
             data.store(writer, fileName);
@@ -56,6 +97,11 @@ public enum UserSettings {
         } catch (IOException e) {
             Logger.getLogger(UserSettings.class.getName()).log(Level.SEVERE, "Unable to store settings.", e);
             return false;
+        } finally {
+            if (SETTINGS_FILENAME.equals(fileName)) {
+                // don't wait for the watcher to notice
+                invalidate();
+            }
         }
     }
 
@@ -75,70 +121,317 @@ public enum UserSettings {
         }
     }
 
-    public int getGridSize() {
-        var settings = new Properties();
-        restore(settings, SETTINGS_FILENAME);
+    /**
+     * Returns the settings in effect. They are read from disk once, and again
+     * only after the settings file changed.
+     */
+    public Snapshot snapshot() {
+        var current = snapshot;
+        return current != null ? current : load();
+    }
 
-        var gridSize = settings.getProperty(GRID_SIZE_KEY);
-        if (gridSize == null) {
-            return GridOperator.DEFAULT_GRID_SIZE;
-        }
+    /**
+     * Starts a transaction whose changes take effect together when it is committed.
+     */
+    public Transaction edit() {
+        return new Transaction(this);
+    }
+
+    /**
+     * Applies {@code change} to the settings in effect and waits until the
+     * result is written to disk in a single commit.
+     *
+     * @return whether the settings were written
+     */
+    public boolean update(UnaryOperator<Snapshot> change) {
+        return commit(change).join();
+    }
 
+    /**
+     * Waits until every committed change has been written to disk.
+     */
+    public void flush() {
         try {
-            return validateGridSize(Integer.parseInt(gridSize));
-        } catch (IllegalArgumentException e) {
-            Logger.getLogger(UserSettings.class.getName()).log(Level.WARNING,
-                    "Invalid grid size setting. Using default grid size.", e);
-            return GridOperator.DEFAULT_GRID_SIZE;
+            writer.submit(() -> {
+            }).get();
+        } catch (RejectedExecutionException | ExecutionException e) {
+            // nothing left to write
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    public void setGridSize(int gridSize) {
+    /**
+     * Applies {@code change} to the settings in memory right away, and writes
+     * them to disk on the writer thread, in commit order.
+     */
+    private synchronized CompletableFuture<Boolean> commit(UnaryOperator<Snapshot> change) {
+        var updated = change.apply(snapshot());
         var settings = new Properties();
-        restore(settings, SETTINGS_FILENAME);
-        settings.setProperty(GRID_SIZE_KEY, Integer.toString(validateGridSize(gridSize)));
-        store(settings, SETTINGS_FILENAME);
+        settings.putAll(loadedSettings);
+        updated.storeIn(settings);
+        loadedSettings = settings;
+        snapshot = updated;
+        pendingWrites++;
+        return CompletableFuture.supplyAsync(() -> {
+            var stored = false;
+            try {
+                stored = storeSettings(settings);
+                return stored;
+            } finally {
+                written(stored);
+            }
+        }, writer);
+    }
+
+    private synchronized void written(boolean stored) {
+        pendingWrites--;
+        if (!stored) {
+            // fall back to what is on disk
+            snapshot = null;
+        }
+    }
+
+    public int getGridSize() {
+        return snapshot().gridSize();
+    }
+
+    public void setGridSize(int gridSize) {
+        update(settings -> settings.withGridSize(gridSize));
     }
 
     public AnimationSpeed getAnimationSpeed() {
-        var settings = new Properties();
-        restore(settings, SETTINGS_FILENAME);
+        return snapshot().animationSpeed();
+    }
 
-        var animationSpeed = settings.getProperty(ANIMATION_SPEED_KEY);
-        if (animationSpeed == null) {
-            return AnimationSpeed.DEFAULT;
+    public void setAnimationSpeed(AnimationSpeed animationSpeed) {
+        update(settings -> settings.withAnimationSpeed(animationSpeed));
+    }
+
+    public AutoSaveMode getAutoSave() {
+        return snapshot().autoSave();
+    }
+
+    public void setAutoSave(AutoSaveMode mode) {
+        update(settings -> settings.withAutoSave(mode));
+    }
+
+    public GameMode getGameMode() {
+        return snapshot().gameMode();
+    }
+
+    public void setGameMode(GameMode mode) {
+        update(settings -> settings.withGameMode(mode));
+    }
+
+    private synchronized Snapshot load() {
+        if (snapshot == null) {
+            var settings = new Properties();
+            restore(settings, SETTINGS_FILENAME);
+            loadedSettings = settings;
+            snapshot = Snapshot.parse(settings);
+            watchSettings();
         }
+        return snapshot;
+    }
 
+    /**
+     * Drops the settings in memory, so the next read loads them from disk.
+     * Synchronized with {@link #load()}, so a load racing with a change on
+     * disk never outlives it. Committed settings not yet written are kept;
+     * writing them invalidates the snapshot again.
+     */
+    private synchronized void invalidate() {
+        if (pendingWrites == 0) {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Writes the settings to a temporary file that then replaces the settings
+     * file, so a crash while writing leaves the previous settings intact.
+     */
+    private boolean storeSettings(Properties settings) {
+        var path = resolve(SETTINGS_FILENAME);
+        var temporary = path.resolveSibling(SETTINGS_FILENAME + ".tmp");
         try {
-            return AnimationSpeed.valueOf(animationSpeed.trim().toUpperCase(Locale.ROOT));
-        } catch (IllegalArgumentException e) {
+            try (var writer = Files.newBufferedWriter(temporary)) {
+                settings.store(writer, SETTINGS_FILENAME);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Logger.getLogger(UserSettings.class.getName()).log(Level.SEVERE, "Unable to store settings.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Starts a daemon thread that invalidates the settings in memory whenever
+     * the settings file is created, modified or deleted.
+     */
+    private void watchSettings() {
+        if (watching) {
+            return;
+        }
+        watching = true;
+        try {
+            var watchService = FileSystems.getDefault().newWatchService();
+            userGameFolder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            Thread.ofPlatform().daemon().name("fx2048-settings-watcher").start(() -> watch(watchService));
+        } catch (IOException | UnsupportedOperationException e) {
             Logger.getLogger(UserSettings.class.getName()).log(Level.WARNING,
-                    "Invalid animation speed setting ''{0}''. Using default animation speed.", animationSpeed);
-            return AnimationSpeed.DEFAULT;
+                    "Unable to watch settings; changes made by other programs are seen after a restart.", e);
         }
     }
 
-    public void setAnimationSpeed(AnimationSpeed animationSpeed) {
-        var settings = new Properties();
-        restore(settings, SETTINGS_FILENAME);
-        settings.setProperty(ANIMATION_SPEED_KEY, validateAnimationSpeed(animationSpeed).name());
-        store(settings, SETTINGS_FILENAME);
+    private void watch(WatchService watchService) {
+        var settingsFile = Path.of(SETTINGS_FILENAME);
+        try (watchService) {
+            while (true) {
+                var key = watchService.take();
+                for (var event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || settingsFile.equals(event.context())) {
+                        invalidate();
+                    }
+                }
+                if (!key.reset()) {
+                    invalidate();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ClosedWatchServiceException e) {
+            Logger.getLogger(UserSettings.class.getName()).log(Level.WARNING, "Stopped watching settings.", e);
+        }
     }
 
-    public AutoSaveMode getAutoSave() {
-        var settings = new Properties();
-        restore(settings, SETTINGS_FILENAME);
-        return AutoSaveMode.fromString(settings.getProperty(AUTO_SAVE_KEY, AutoSaveMode.OFF.name()));
+    /**
+     * Changes staged by several settings, committed together as one
+     * {@link Snapshot} and a single write of the settings file. Changes are
+     * validated as they are staged and apply to the settings in effect when
+     * {@link #commit()} is called. A transaction is not thread-safe.
+     */
+    public static final class Transaction {
+
+        private final UserSettings settings;
+        private UnaryOperator<Snapshot> changes = UnaryOperator.identity();
+
+        private Transaction(UserSettings settings) {
+            this.settings = settings;
+        }
+
+        public Transaction setGridSize(int gridSize) {
+            validateGridSize(gridSize);
+            return stage(snapshot -> snapshot.withGridSize(gridSize));
+        }
+
+        public Transaction setAnimationSpeed(AnimationSpeed animationSpeed) {
+            Objects.requireNonNull(animationSpeed, "Animation speed cannot be null.");
+            return stage(snapshot -> snapshot.withAnimationSpeed(animationSpeed));
+        }
+
+        public Transaction setAutoSave(AutoSaveMode mode) {
+            Objects.requireNonNull(mode, "Auto-save mode cannot be null.");
+            return stage(snapshot -> snapshot.withAutoSave(mode));
+        }
+
+        public Transaction setGameMode(GameMode mode) {
+            Objects.requireNonNull(mode, "Game mode cannot be null.");
+            return stage(snapshot -> snapshot.withGameMode(mode));
+        }
+
+        /**
+         * Makes the staged changes take effect at once; they are written to
+         * disk in the background.
+         *
+         * @return completes with whether the settings file was written
+         */
+        public CompletableFuture<Boolean> commit() {
+            return settings.commit(changes);
+        }
+
+        private Transaction stage(UnaryOperator<Snapshot> change) {
+            var staged = changes;
+            changes = snapshot -> change.apply(staged.apply(snapshot));
+            return this;
+        }
     }
 
-    public void setAutoSave(AutoSaveMode mode) {
-        var settings = new Properties();
-        restore(settings, SETTINGS_FILENAME);
-        settings.setProperty(AUTO_SAVE_KEY, mode.name());
-        store(settings, SETTINGS_FILENAME);
+    /**
+     * An immutable copy of the settings, parsed once when they are loaded.
+     */
+    public record Snapshot(int gridSize, AnimationSpeed animationSpeed, AutoSaveMode autoSave, GameMode gameMode) {
+
+        public Snapshot {
+            validateGridSize(gridSize);
+            Objects.requireNonNull(animationSpeed, "Animation speed cannot be null.");
+            Objects.requireNonNull(autoSave, "Auto-save mode cannot be null.");
+            Objects.requireNonNull(gameMode, "Game mode cannot be null.");
+        }
+
+        public Snapshot withGridSize(int gridSize) {
+            return new Snapshot(gridSize, animationSpeed, autoSave, gameMode);
+        }
+
+        public Snapshot withAnimationSpeed(AnimationSpeed animationSpeed) {
+            return new Snapshot(gridSize, animationSpeed, autoSave, gameMode);
+        }
+
+        public Snapshot withAutoSave(AutoSaveMode autoSave) {
+            return new Snapshot(gridSize, animationSpeed, autoSave, gameMode);
+        }
+
+        public Snapshot withGameMode(GameMode gameMode) {
+            return new Snapshot(gridSize, animationSpeed, autoSave, gameMode);
+        }
+
+        private void storeIn(Properties settings) {
+            settings.setProperty(GRID_SIZE_KEY, Integer.toString(gridSize));
+            settings.setProperty(ANIMATION_SPEED_KEY, animationSpeed.name());
+            settings.setProperty(AUTO_SAVE_KEY, autoSave.name());
+            settings.setProperty(GAME_MODE_KEY, gameMode.name());
+        }
+
+        private static Snapshot parse(Properties settings) {
+            return new Snapshot(parseGridSize(settings.getProperty(GRID_SIZE_KEY)),
+                    parseAnimationSpeed(settings.getProperty(ANIMATION_SPEED_KEY)),
+                    AutoSaveMode.fromString(settings.getProperty(AUTO_SAVE_KEY, AutoSaveMode.OFF.name())),
+                    GameMode.fromString(settings.getProperty(GAME_MODE_KEY, GameMode.CLASSIC.name())));
+        }
+
+        private static int parseGridSize(String gridSize) {
+            if (gridSize == null) {
+                return GridOperator.DEFAULT_GRID_SIZE;
+            }
+
+            try {
+                return validateGridSize(Integer.parseInt(gridSize));
+            } catch (IllegalArgumentException e) {
+                Logger.getLogger(UserSettings.class.getName()).log(Level.WARNING,
+                        "Invalid grid size setting. Using default grid size.", e);
+                return GridOperator.DEFAULT_GRID_SIZE;
+            }
+        }
+
+        private static AnimationSpeed parseAnimationSpeed(String animationSpeed) {
+            if (animationSpeed == null) {
+                return AnimationSpeed.DEFAULT;
+            }
+
+            try {
+                return AnimationSpeed.valueOf(animationSpeed.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                Logger.getLogger(UserSettings.class.getName()).log(Level.WARNING,
+                        "Invalid animation speed setting ''{0}''. Using default animation speed.", animationSpeed);
+                return AnimationSpeed.DEFAULT;
+            }
+        }
     }
 
-    private int validateGridSize(int gridSize) {
+    private static int validateGridSize(int gridSize) {
         if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > GridOperator.MAX_GRID_SIZE) {
             throw new IllegalArgumentException("Grid size must be of range %s and %s."
                     .formatted(GridOperator.MIN_GRID_SIZE, GridOperator.MAX_GRID_SIZE));
@@ -146,8 +439,4 @@ public enum UserSettings {
         return gridSize;
     }
 
-    private AnimationSpeed validateAnimationSpeed(AnimationSpeed animationSpeed) {
-        return Objects.requireNonNull(animationSpeed, "Animation speed cannot be null.");
-    }
-
 }
@@ -33,11 +33,14 @@ public final class AnimationSpeedSetting implements SettingsPanel.Item {
         animationSpeedChoice.setValue(UserSettings.LOCAL.getAnimationSpeed());
     }
 
+    @Override
+    public void stage(UserSettings.Transaction settings) {
+        settings.setAnimationSpeed(animationSpeedChoice.getValue());
+    }
+
     @Override
     public boolean apply() {
-        var selectedAnimationSpeed = animationSpeedChoice.getValue();
-        UserSettings.LOCAL.setAnimationSpeed(selectedAnimationSpeed);
-        animationSpeedChangeHandler.accept(selectedAnimationSpeed);
+        animationSpeedChangeHandler.accept(animationSpeedChoice.getValue());
         return false;
     }
 }
@@ -8,7 +8,8 @@ public enum AutoSaveMode {
 
     OFF("Off"),
     ON_EXIT("On Exit"),
-    AFTER_EVERY_MOVE("After Every Move");
+    AFTER_EVERY_MOVE("After Every Move"),
+    JOURNAL("Move Journal");
 
     private final String displayName;
 
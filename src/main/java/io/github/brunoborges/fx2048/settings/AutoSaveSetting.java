@@ -36,9 +36,13 @@ public final class AutoSaveSetting implements SettingsPanel.Item {
         autoSaveChoice.setValue(UserSettings.LOCAL.getAutoSave());
     }
 
+    @Override
+    public void stage(UserSettings.Transaction settings) {
+        settings.setAutoSave(autoSaveChoice.getValue());
+    }
+
     @Override
     public boolean apply() {
-        UserSettings.LOCAL.setAutoSave(autoSaveChoice.getValue());
         return false;
     }
 }
@@ -0,0 +1,35 @@
+package io.github.brunoborges.fx2048.settings;
+
+
+/**
+ * How new tiles are spawned after every move.
+ */
+public enum GameMode {
+
+    CLASSIC("Classic"),
+    EVIL("Evil spawner");
+
+    private final String displayName;
+
+    GameMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    /**
+     * Returns the {@code GameMode} whose {@link #name()} matches {@code value} (case-insensitive).
+     * Returns {@link #CLASSIC} when {@code value} is {@code null}, empty, or does not match any mode.
+     */
+    public static GameMode fromString(String value) {
+        for (var mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        return CLASSIC;
+    }
+}
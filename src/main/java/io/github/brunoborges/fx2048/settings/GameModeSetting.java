@@ -0,0 +1,46 @@
+package io.github.brunoborges.fx2048.settings;
+
+
+import java.util.function.Consumer;
+
+import javafx.scene.Node;
+import javafx.scene.control.ChoiceBox;
+import io.github.brunoborges.fx2048.persistence.UserSettings;
+import io.github.brunoborges.fx2048.ui.SettingsPanel;
+
+public final class GameModeSetting implements SettingsPanel.Item {
+
+    private final Consumer<GameMode> gameModeChangeHandler;
+    private final ChoiceBox<GameMode> gameModeChoice = new ChoiceBox<>();
+    public GameModeSetting(Consumer<GameMode> gameModeChangeHandler) {
+        this.gameModeChangeHandler = gameModeChangeHandler;
+        gameModeChoice.getItems().setAll(GameMode.values());
+        gameModeChoice.getStyleClass().add("game-settings-choice");
+    }
+
+    @Override
+    public String label() {
+        return "Game mode";
+    }
+
+    @Override
+    public Node control() {
+        return gameModeChoice;
+    }
+
+    @Override
+    public void refresh() {
+        gameModeChoice.setValue(UserSettings.LOCAL.getGameMode());
+    }
+
+    @Override
+    public void stage(UserSettings.Transaction settings) {
+        settings.setGameMode(gameModeChoice.getValue());
+    }
+
+    @Override
+    public boolean apply() {
+        gameModeChangeHandler.accept(gameModeChoice.getValue());
+        return false;
+    }
+}
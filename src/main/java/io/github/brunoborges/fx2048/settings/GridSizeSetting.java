@@ -47,11 +47,14 @@ public final class GridSizeSetting implements SettingsPanel.Item {
         gridSizeChoice.setValue(gridOperator.getGridSize());
     }
 
+    @Override
+    public void stage(UserSettings.Transaction settings) {
+        settings.setGridSize(gridSizeChoice.getValue());
+    }
+
     @Override
     public boolean apply() {
         var selectedGridSize = gridSizeChoice.getValue();
-        UserSettings.LOCAL.setGridSize(selectedGridSize);
-
         if (selectedGridSize != gridOperator.getGridSize()) {
             gridSizeChangeHandler.accept(selectedGridSize);
             return true;
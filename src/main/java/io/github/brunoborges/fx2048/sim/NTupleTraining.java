@@ -0,0 +1,335 @@
+package io.github.brunoborges.fx2048.sim;
+
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import io.github.brunoborges.fx2048.ai.NTupleNetwork;
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+/**
+ * Trains an {@link NTupleNetwork} by temporal-difference learning on self-play games.
+ * <p>
+ * Every move goes to the afterstate with the highest reward plus value, and
+ * the value of the previous afterstate is moved towards that reward plus
+ * value (TD(0)), or towards 0 when the game ends. Worker threads play games
+ * round-robin on their own engines and spawn streams and update the shared
+ * network without locks. Training runs in rounds of {@code --checkpoint}
+ * games; after each round the throughput and scores are printed and the
+ * network is saved.
+ * <pre>
+ * java -m fxgame/io.github.brunoborges.fx2048.sim.NTupleTraining --games 100000 --out ntuple.bin
+ * </pre>
+ */
+public final class NTupleTraining {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Settings of a training run.
+     *
+     * @param resume a checkpoint to continue from, or {@code null} to start from zero weights
+     * @param output where to save the network after every round, or {@code null} not to save it
+     */
+    public record Options(int games, int threads, double learningRate, long seed, int gridSize,
+            NTupleNetwork.Layout layout, NTupleNetwork.Storage storage, Path resume, Path output, int checkpoint) {
+
+        public Options {
+            if (games < 1) {
+                throw new IllegalArgumentException("The number of games must be positive");
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("The number of threads must be positive");
+            }
+            if (!(learningRate > 0 && learningRate <= 1)) {
+                throw new IllegalArgumentException("The learning rate must be in (0, 1]");
+            }
+            if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > GridOperator.MAX_GRID_SIZE) {
+                throw new IllegalArgumentException("Grid size must be between %s and %s"
+                        .formatted(GridOperator.MIN_GRID_SIZE, GridOperator.MAX_GRID_SIZE));
+            }
+            if (layout == null || storage == null) {
+                throw new IllegalArgumentException("A layout and a storage are required");
+            }
+            if (checkpoint < 1) {
+                throw new IllegalArgumentException("The checkpoint interval must be positive");
+            }
+        }
+
+        public static Options defaults() {
+            return new Options(100_000, Runtime.getRuntime().availableProcessors(), 0.1, 2048, 4,
+                    NTupleNetwork.Layout.SMALL, NTupleNetwork.Storage.HEAP, null, Path.of("ntuple.bin"), 10_000);
+        }
+
+        /**
+         * Parses {@code --games}, {@code --threads}, {@code --alpha}, {@code --seed},
+         * {@code --grid}, {@code --layout small|large}, {@code --storage heap|off-heap},
+         * {@code --resume}, {@code --out} and {@code --checkpoint}; options that are
+         * not given keep their defaults.
+         *
+         * @throws IllegalArgumentException for unknown options or invalid values
+         */
+        public static Options parse(String... args) {
+            var defaults = defaults();
+            var games = defaults.games();
+            var threads = defaults.threads();
+            var learningRate = defaults.learningRate();
+            var seed = defaults.seed();
+            var gridSize = defaults.gridSize();
+            var layout = defaults.layout();
+            var storage = defaults.storage();
+            var resume = defaults.resume();
+            var output = defaults.output();
+            var checkpoint = defaults.checkpoint();
+            for (int i = 0; i < args.length; i++) {
+                var option = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                var value = args[++i];
+                switch (option) {
+                    case "--games" -> games = Integer.parseInt(value);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    case "--alpha" -> learningRate = Double.parseDouble(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--grid" -> gridSize = Integer.parseInt(value);
+                    case "--layout" -> layout = NTupleNetwork.Layout.fromString(value);
+                    case "--storage" -> storage = NTupleNetwork.Storage.fromString(value);
+                    case "--resume" -> resume = Path.of(value);
+                    case "--out" -> output = Path.of(value);
+                    case "--checkpoint" -> checkpoint = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            return new Options(games, threads, learningRate, seed, gridSize, layout, storage, resume, output,
+                    checkpoint);
+        }
+    }
+
+    /**
+     * Throughput and results of a training run, or of one round of it.
+     *
+     * @param games the games played
+     * @param meanScore the mean final score of those games
+     * @param winRate the fraction of those games that reached 2048
+     */
+    public record Report(int games, long moves, long elapsedNanos, double meanScore, double winRate) {
+
+        public double gamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+        }
+
+        public double movesPerSecond() {
+            return elapsedNanos == 0 ? 0 : moves * 1e9 / elapsedNanos;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("%,d games in %.1f s: %,.0f games/s, %,.0f moves/s, mean score %,.0f, 2048 in %.1f%%%n",
+                    games, elapsedNanos / 1e9, gamesPerSecond(), movesPerSecond(), meanScore, 100 * winRate);
+        }
+    }
+
+    private NTupleTraining() {
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: NTupleTraining [--games N] [--threads T] [--alpha A] [--seed S] [--grid 4-16]"
+                    + " [--layout small|large] [--storage heap|off-heap] [--resume FILE] [--out FILE]"
+                    + " [--checkpoint N]");
+            System.exit(2);
+            return;
+        }
+        try (var network = open(options)) {
+            System.out.printf("Training a network of %d tuples: %,d weights, %,d KiB %s%n", network.tuples().size(),
+                    network.weightCount(), network.memoryBytes() >> 10, network.storage());
+            var report = train(network, options, System.out);
+            System.out.print("Total: ");
+            report.print(System.out);
+        } catch (IOException e) {
+            System.err.println("Cannot train: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates the network to train, or loads it from {@link Options#resume()}.
+     */
+    public static NTupleNetwork open(Options options) throws IOException {
+        if (options.resume() != null && Files.exists(options.resume())) {
+            var network = NTupleNetwork.load(options.resume(), options.storage());
+            if (network.gridSize() != options.gridSize()) {
+                network.close();
+                throw new IOException("%s was trained on a %dx%d grid".formatted(options.resume(),
+                        network.gridSize(), network.gridSize()));
+            }
+            return network;
+        }
+        return new NTupleNetwork(options.gridSize(), options.layout(), options.storage());
+    }
+
+    /**
+     * Trains {@code network} for {@link Options#games()} games, printing a
+     * line per round to {@code progress} and saving to {@link Options#output()}.
+     */
+    public static Report train(NTupleNetwork network, Options options, PrintStream progress) throws IOException {
+        var threads = Math.min(options.threads(), options.games());
+        var root = SpawnStream.seeded(options.seed());
+        var workers = new ArrayList<Worker>(threads);
+        for (int index = 0; index < threads; index++) {
+            workers.add(new Worker(network, options, root.split()));
+        }
+
+        var played = 0;
+        var moves = 0L;
+        var totalScore = 0.0;
+        var wins = 0;
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            while (played < options.games()) {
+                var roundGames = Math.min(options.checkpoint(), options.games() - played);
+                var roundStarted = System.nanoTime();
+                var results = new ArrayList<Future<Round>>(threads);
+                for (int index = 0; index < threads; index++) {
+                    var worker = workers.get(index);
+                    var games = roundGames / threads + (index < roundGames % threads ? 1 : 0);
+                    results.add(executor.submit(() -> worker.play(games)));
+                }
+                var round = new Round();
+                for (var result : results) {
+                    round.add(join(result));
+                }
+                played += roundGames;
+                moves += round.moves;
+                totalScore += round.totalScore;
+                wins += round.wins;
+
+                progress.printf("[%,d/%,d] ", played, options.games());
+                round.report(roundGames, System.nanoTime() - roundStarted).print(progress);
+                if (options.output() != null) {
+                    network.save(options.output());
+                }
+            }
+        }
+        return new Report(played, moves, System.nanoTime() - started, totalScore / played, (double) wins / played);
+    }
+
+    private static Round join(Future<Round> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Training interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Training failed", e.getCause());
+        }
+    }
+
+    /**
+     * Totals of the games a worker played in one round.
+     */
+    private static final class Round {
+
+        private long moves;
+        private double totalScore;
+        private int wins;
+
+        void add(Round other) {
+            moves += other.moves;
+            totalScore += other.totalScore;
+            wins += other.wins;
+        }
+
+        Report report(int games, long elapsedNanos) {
+            return new Report(games, moves, elapsedNanos, totalScore / games, (double) wins / games);
+        }
+    }
+
+    /**
+     * Plays training games on its own engines, updating the shared network.
+     */
+    private static final class Worker {
+
+        private final NTupleNetwork network;
+        private final double stepSize;
+        private final BitBoardEngine engine;
+        private final BitBoardEngine candidate;
+        private final BitBoardEngine afterstate;
+        private final BitBoardEngine previous;
+
+        Worker(NTupleNetwork network, Options options, RandomGenerator spawns) {
+            this.network = network;
+            // spread the learning rate over the weights that make up a value
+            this.stepSize = options.learningRate() / network.featureCount();
+            this.engine = new BitBoardEngine(options.gridSize(), spawns);
+            this.candidate = engine.copy();
+            this.afterstate = engine.copy();
+            this.previous = engine.copy();
+        }
+
+        Round play(int games) {
+            var round = new Round();
+            for (int game = 0; game < games; game++) {
+                playGame(round);
+            }
+            return round;
+        }
+
+        private void playGame(Round round) {
+            var score = 0;
+            var hasPrevious = false;
+            engine.startGame();
+            while (true) {
+                var reward = BitBoardEngine.NO_MOVE;
+                var best = 0.0;
+                for (var direction : DIRECTIONS) {
+                    candidate.copyFrom(engine);
+                    var points = candidate.move(direction, null);
+                    if (points == BitBoardEngine.NO_MOVE) {
+                        continue;
+                    }
+                    var value = points + network.evaluate(candidate);
+                    if (reward == BitBoardEngine.NO_MOVE || value > best) {
+                        reward = points;
+                        best = value;
+                        afterstate.copyFrom(candidate);
+                    }
+                }
+                if (reward == BitBoardEngine.NO_MOVE) {
+                    break;
+                }
+                if (hasPrevious) {
+                    network.update(previous, stepSize * (best - network.evaluate(previous)));
+                }
+                previous.copyFrom(afterstate);
+                hasPrevious = true;
+                score += reward;
+                round.moves++;
+                engine.copyFrom(afterstate);
+                engine.addRandomTile();
+            }
+            if (hasPrevious) {
+                network.update(previous, -stepSize * network.evaluate(previous));
+            }
+            round.totalScore += score;
+            if (engine.snapshot().maxValue() >= GameModel.FINAL_VALUE_TO_WIN) {
+                round.wins++;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.brunoborges.fx2048.sim;
+
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import io.github.brunoborges.fx2048.ai.MonteCarloSearch;
+import io.github.brunoborges.fx2048.game.GridOperator;
+
+/**
+ * Measures how many playouts per second {@link MonteCarloSearch} completes on
+ * this machine, on boards sampled from seeded games played with the
+ * {@link Policy#CORNER} policy.
+ * <pre>
+ * java -m fxgame/io.github.brunoborges.fx2048.sim.PlayoutRate --grid 4 --budget 50 --tasks 8
+ * </pre>
+ */
+public final class PlayoutRate {
+
+    private PlayoutRate() {
+    }
+
+    /**
+     * Settings of a playout rate measurement.
+     */
+    public record Options(int gridSize, int budgetMillis, int boards, long seed, MonteCarloSearch.Options search) {
+
+        public Options {
+            if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > GridOperator.MAX_GRID_SIZE) {
+                throw new IllegalArgumentException("Grid size must be between %s and %s"
+                        .formatted(GridOperator.MIN_GRID_SIZE, GridOperator.MAX_GRID_SIZE));
+            }
+            if (budgetMillis < 1) {
+                throw new IllegalArgumentException("The budget must be positive");
+            }
+            if (boards < 1) {
+                throw new IllegalArgumentException("The number of boards must be positive");
+            }
+        }
+
+        /**
+         * Parses {@code --grid}, {@code --budget} (ms per move), {@code --boards},
+         * {@code --seed} and {@code --tasks} (per legal move).
+         *
+         * @throws IllegalArgumentException for unknown options or invalid values
+         */
+        public static Options parse(String... args) {
+            var gridSize = 4;
+            var budgetMillis = 50;
+            var boards = 20;
+            var seed = 2048L;
+            var tasksPerMove = MonteCarloSearch.Options.defaults().tasksPerMove();
+            for (int i = 0; i < args.length; i++) {
+                var option = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                var value = args[++i];
+                switch (option) {
+                    case "--grid" -> gridSize = Integer.parseInt(value);
+                    case "--budget" -> budgetMillis = Integer.parseInt(value);
+                    case "--boards" -> boards = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--tasks" -> tasksPerMove = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            return new Options(gridSize, budgetMillis, boards, seed, new MonteCarloSearch.Options(tasksPerMove));
+        }
+    }
+
+    /**
+     * Playouts completed over all boards and the time they took.
+     */
+    public record Report(Options options, long playouts, long nanos) {
+
+        public double playoutsPerSecond() {
+            return nanos == 0 ? 0 : playouts * 1e9 / nanos;
+        }
+
+        public void print(PrintStream out) {
+            var search = options.search();
+            out.printf("%d boards, %dx%d grid, %d ms/move, %d tasks per move%n",
+                    options.boards(), options.gridSize(), options.gridSize(), options.budgetMillis(),
+                    search.tasksPerMove());
+            out.printf("%,d playouts/move, %.1f ms/move, %,.0f playouts/s%n", playouts / options.boards(),
+                    nanos / 1e6 / options.boards(), playoutsPerSecond());
+        }
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: PlayoutRate [--grid 4-16] [--budget MS] [--boards N] [--seed S]"
+                    + " [--tasks T]");
+            System.exit(2);
+            return;
+        }
+        run(options).print(System.out);
+    }
+
+    public static Report run(Options options) {
+        var boards = SearchSpeedup.sampleBoards(options.gridSize(), options.boards(), options.seed());
+        var budget = Duration.ofMillis(options.budgetMillis());
+        try (var search = new MonteCarloSearch(options.gridSize(), options.search(),
+                new SplittableRandom(options.seed()))) {
+            // one untimed pass over the boards lets the JIT compile the playouts
+            for (var board : boards) {
+                search.search(board, budget);
+            }
+
+            var playouts = 0L;
+            var nanos = 0L;
+            for (var board : boards) {
+                var result = search.search(board, budget);
+                playouts += result.nodes();
+                nanos += result.elapsedNanos();
+            }
+            return new Report(options, playouts, nanos);
+        }
+    }
+}
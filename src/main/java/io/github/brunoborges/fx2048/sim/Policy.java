@@ -0,0 +1,87 @@
+package io.github.brunoborges.fx2048.sim;
+
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+
+/**
+ * Move selection strategies for headless games.
+ */
+public enum Policy {
+
+    /**
+     * Plays a uniformly random direction among those that move a tile.
+     */
+    RANDOM {
+        @Override
+        Direction choose(GameModel model, RandomGenerator random) {
+            var legal = 0;
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                if (model.preview(DIRECTIONS[i]) != BitBoardEngine.NO_MOVE) {
+                    legal |= 1 << i;
+                }
+            }
+            if (legal == 0) {
+                return null;
+            }
+            for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+                legal &= legal - 1;
+            }
+            return DIRECTIONS[Integer.numberOfTrailingZeros(legal)];
+        }
+    },
+
+    /**
+     * Plays the direction that earns the most points right now, breaking ties at random.
+     */
+    GREEDY {
+        @Override
+        Direction choose(GameModel model, RandomGenerator random) {
+            var start = random.nextInt(DIRECTIONS.length);
+            Direction best = null;
+            var bestPoints = BitBoardEngine.NO_MOVE;
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                var direction = DIRECTIONS[(start + i) % DIRECTIONS.length];
+                var points = model.preview(direction);
+                if (points > bestPoints) {
+                    best = direction;
+                    bestPoints = points;
+                }
+            }
+            return best;
+        }
+    },
+
+    /**
+     * Keeps the largest tiles in the bottom-left corner: down, then left, then
+     * right, and up only when nothing else moves.
+     */
+    CORNER {
+        private static final Direction[] PREFERENCE = { Direction.DOWN, Direction.LEFT, Direction.RIGHT, Direction.UP };
+
+        @Override
+        Direction choose(GameModel model, RandomGenerator random) {
+            for (var direction : PREFERENCE) {
+                if (model.preview(direction) != BitBoardEngine.NO_MOVE) {
+                    return direction;
+                }
+            }
+            return null;
+        }
+    };
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Returns the direction to play, or {@code null} when no direction moves a tile.
+     */
+    abstract Direction choose(GameModel model, RandomGenerator random);
+
+    public static Policy fromString(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,171 @@
+package io.github.brunoborges.fx2048.sim;
+
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.brunoborges.fx2048.ai.ExpectimaxSearch;
+import io.github.brunoborges.fx2048.ai.HeuristicEvaluator;
+import io.github.brunoborges.fx2048.ai.ParallelExpectimaxSearch;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+/**
+ * Measures the speedup of {@link ParallelExpectimaxSearch} over
+ * {@link ExpectimaxSearch} at equal depth, on boards sampled from seeded games
+ * played with the {@link Policy#CORNER} policy.
+ * <pre>
+ * java -m fxgame/io.github.brunoborges.fx2048.sim.SearchSpeedup --grid 4 --depth 4 --threads 16
+ * </pre>
+ */
+public final class SearchSpeedup {
+
+    private SearchSpeedup() {
+    }
+
+    /**
+     * Settings of a speedup measurement.
+     */
+    public record Options(int gridSize, int depth, int boards, long seed, ParallelExpectimaxSearch.Options search) {
+
+        public Options {
+            if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > GridOperator.MAX_GRID_SIZE) {
+                throw new IllegalArgumentException("Grid size must be between %s and %s"
+                        .formatted(GridOperator.MIN_GRID_SIZE, GridOperator.MAX_GRID_SIZE));
+            }
+            if (depth < 1 || depth > ExpectimaxSearch.MAX_DEPTH) {
+                throw new IllegalArgumentException("Depth must be between 1 and " + ExpectimaxSearch.MAX_DEPTH);
+            }
+            if (boards < 1) {
+                throw new IllegalArgumentException("The number of boards must be positive");
+            }
+        }
+
+        /**
+         * Parses {@code --grid}, {@code --depth}, {@code --boards}, {@code --seed},
+         * {@code --threads}, {@code --split-depth} and {@code --granularity}.
+         *
+         * @throws IllegalArgumentException for unknown options or invalid values
+         */
+        public static Options parse(String... args) {
+            var gridSize = 4;
+            var depth = 3;
+            var boards = 20;
+            var seed = 2048L;
+            var search = ParallelExpectimaxSearch.Options.defaults();
+            var parallelism = search.parallelism();
+            var splitDepth = search.splitDepth();
+            var granularity = search.granularity();
+            for (int i = 0; i < args.length; i++) {
+                var option = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                var value = args[++i];
+                switch (option) {
+                    case "--grid" -> gridSize = Integer.parseInt(value);
+                    case "--depth" -> depth = Integer.parseInt(value);
+                    case "--boards" -> boards = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--threads" -> parallelism = Integer.parseInt(value);
+                    case "--split-depth" -> splitDepth = Integer.parseInt(value);
+                    case "--granularity" -> granularity = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            return new Options(gridSize, depth, boards, seed,
+                    new ParallelExpectimaxSearch.Options(parallelism, splitDepth, granularity));
+        }
+    }
+
+    /**
+     * Total search times over all boards, and how many boards got a different move.
+     */
+    public record Report(Options options, long sequentialNanos, long parallelNanos, long nodes, int mismatches) {
+
+        public double speedup() {
+            return parallelNanos == 0 ? 0 : (double) sequentialNanos / parallelNanos;
+        }
+
+        public void print(PrintStream out) {
+            var search = options.search();
+            out.printf("%d boards, %dx%d grid, depth %d, %d threads, split depth %d, granularity %d%n",
+                    options.boards(), options.gridSize(), options.gridSize(), options.depth(),
+                    search.parallelism(), search.splitDepth(), search.granularity());
+            out.printf("Sequential: %.1f ms/move, %,.0f nodes/s%n", sequentialNanos / 1e6 / options.boards(),
+                    nodes * 1e9 / sequentialNanos);
+            out.printf("Parallel:   %.1f ms/move, %,.0f nodes/s%n", parallelNanos / 1e6 / options.boards(),
+                    nodes * 1e9 / parallelNanos);
+            out.printf("Speedup: %.2fx (%d moves differ)%n", speedup(), mismatches);
+        }
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: SearchSpeedup [--grid 4-16] [--depth D] [--boards N] [--seed S]"
+                    + " [--threads T] [--split-depth S] [--granularity G]");
+            System.exit(2);
+            return;
+        }
+        run(options).print(System.out);
+    }
+
+    public static Report run(Options options) {
+        var boards = sampleBoards(options.gridSize(), options.boards(), options.seed());
+        var sequential = new ExpectimaxSearch(options.gridSize(), HeuristicEvaluator.INSTANCE);
+        try (var parallel = new ParallelExpectimaxSearch(options.gridSize(), HeuristicEvaluator.INSTANCE,
+                options.search())) {
+            // one untimed pass over the boards lets the JIT compile both searches
+            for (var board : boards) {
+                sequential.searchDepth(board, options.depth());
+                parallel.searchDepth(board, options.depth());
+            }
+
+            var sequentialNanos = 0L;
+            var parallelNanos = 0L;
+            var nodes = 0L;
+            var mismatches = 0;
+            for (var board : boards) {
+                var expected = sequential.searchDepth(board, options.depth());
+                var actual = parallel.searchDepth(board, options.depth());
+                sequentialNanos += expected.elapsedNanos();
+                parallelNanos += actual.elapsedNanos();
+                nodes += expected.nodes();
+                if (expected.direction() != actual.direction()) {
+                    mismatches++;
+                }
+            }
+            return new Report(options, sequentialNanos, parallelNanos, nodes, mismatches);
+        }
+    }
+
+    /**
+     * Plays seeded games and keeps one board every few moves.
+     */
+    static List<BoardState> sampleBoards(int gridSize, int count, long seed) {
+        var model = new GameModel(new GridOperator(gridSize), SpawnStream.seeded(seed));
+        var choices = SpawnStream.seeded(~seed);
+        var boards = new ArrayList<BoardState>(count);
+        model.startGame();
+        for (int moves = 1; boards.size() < count; moves++) {
+            var direction = Policy.CORNER.choose(model, choices);
+            if (direction == null) {
+                model.startGame();
+                continue;
+            }
+            model.play(direction);
+            model.addRandomTile();
+            if (moves % 7 == 0) {
+                boards.add(model.snapshot());
+            }
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.brunoborges.fx2048.sim;
+
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Outcome of a batch of headless games: throughput plus the score and
+ * max-tile distributions.
+ *
+ * @param scores the final score of every game, in game order
+ * @param maxTileCounts the number of games per highest tile exponent
+ */
+public record SimulationReport(SimulationRunner.Options options, long moves, long elapsedNanos,
+        int[] scores, long[] maxTileCounts) {
+
+    public SimulationReport {
+        scores = scores.clone();
+        maxTileCounts = maxTileCounts.clone();
+    }
+
+    public int games() {
+        return scores.length;
+    }
+
+    public int[] scores() {
+        return scores.clone();
+    }
+
+    public long[] maxTileCounts() {
+        return maxTileCounts.clone();
+    }
+
+    public double gamesPerSecond() {
+        return perSecond(games());
+    }
+
+    public double movesPerSecond() {
+        return perSecond(moves);
+    }
+
+    public double meanScore() {
+        return Arrays.stream(scores).average().orElse(0);
+    }
+
+    /**
+     * Returns the score below which {@code percent} of the games ended
+     * (nearest-rank method), or {@code 0} when no game was played.
+     */
+    public int scorePercentile(double percent) {
+        if (scores.length == 0) {
+            return 0;
+        }
+        var sorted = scores.clone();
+        Arrays.sort(sorted);
+        var rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.clamp(rank - 1, 0, sorted.length - 1)];
+    }
+
+    public void print(PrintStream out) {
+        out.printf("Played %,d games (%s policy, %dx%d grid, seed %d) on %d threads in %.3f s%n",
+                games(), options.policy(), options.gridSize(), options.gridSize(), options.seed(),
+                options.workerThreads(), elapsedNanos / 1e9);
+        out.printf("Throughput: %,.0f games/s, %,.0f moves/s (%,d moves)%n",
+                gamesPerSecond(), movesPerSecond(), moves);
+        out.printf("Score: mean %,.0f, min %,d, p50 %,d, p90 %,d, p99 %,d, max %,d%n",
+                meanScore(), scorePercentile(0), scorePercentile(50), scorePercentile(90),
+                scorePercentile(99), scorePercentile(100));
+        out.println("Max tile:");
+        for (int exponent = 1; exponent < maxTileCounts.length; exponent++) {
+            if (maxTileCounts[exponent] > 0) {
+                out.printf("  %8d  %,10d  %6.2f%%%n", 1L << exponent, maxTileCounts[exponent],
+                        100.0 * maxTileCounts[exponent] / games());
+            }
+        }
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,185 @@
+package io.github.brunoborges.fx2048.sim;
+
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+/**
+ * Plays batches of games without JavaFX, for measuring policies and engine throughput.
+ * <p>
+ * Games are dealt round-robin to a fixed number of worker threads. Each worker
+ * owns its {@link GameModel} and two generators split from the seed, one for
+ * spawns and one for the policy, so a run is reproducible for a given seed and
+ * thread count and workers share nothing while playing.
+ * <pre>
+ * java -m fxgame/io.github.brunoborges.fx2048.sim.SimulationRunner --games 100000 --policy corner
+ * </pre>
+ */
+public final class SimulationRunner {
+
+    private static final int MAX_EXPONENT = 31;
+
+    /**
+     * Settings of a simulation run.
+     */
+    public record Options(int games, Policy policy, long seed, int gridSize, int threads) {
+
+        public Options {
+            if (games < 1) {
+                throw new IllegalArgumentException("The number of games must be positive");
+            }
+            if (gridSize < GridOperator.MIN_GRID_SIZE || gridSize > GridOperator.MAX_GRID_SIZE) {
+                throw new IllegalArgumentException("Grid size must be between %s and %s"
+                        .formatted(GridOperator.MIN_GRID_SIZE, GridOperator.MAX_GRID_SIZE));
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("The number of threads must be positive");
+            }
+            if (policy == null) {
+                throw new IllegalArgumentException("A policy is required");
+            }
+        }
+
+        public static Options defaults() {
+            return new Options(10_000, Policy.CORNER, 2048, GridOperator.DEFAULT_GRID_SIZE,
+                    Runtime.getRuntime().availableProcessors());
+        }
+
+        /**
+         * The threads actually started: no more than there are games.
+         */
+        public int workerThreads() {
+            return Math.min(threads, games);
+        }
+
+        /**
+         * Parses {@code --games}, {@code --policy}, {@code --seed}, {@code --grid}
+         * and {@code --threads}; options that are not given keep their defaults.
+         *
+         * @throws IllegalArgumentException for unknown options or invalid values
+         */
+        public static Options parse(String... args) {
+            var defaults = defaults();
+            var games = defaults.games();
+            var policy = defaults.policy();
+            var seed = defaults.seed();
+            var gridSize = defaults.gridSize();
+            var threads = defaults.threads();
+            for (int i = 0; i < args.length; i++) {
+                var option = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                var value = args[++i];
+                switch (option) {
+                    case "--games" -> games = Integer.parseInt(value);
+                    case "--policy" -> policy = Policy.fromString(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--grid" -> gridSize = Integer.parseInt(value);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            return new Options(games, policy, seed, gridSize, threads);
+        }
+    }
+
+    private SimulationRunner() {
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: SimulationRunner [--games N] [--policy random|greedy|corner]"
+                    + " [--seed S] [--grid 4-16] [--threads T]");
+            System.exit(2);
+            return;
+        }
+        run(options).print(System.out);
+    }
+
+    public static SimulationReport run(Options options) {
+        var threads = options.workerThreads();
+        var root = SpawnStream.seeded(options.seed());
+        var workers = new ArrayList<Worker>(threads);
+        for (int index = 0; index < threads; index++) {
+            workers.add(new Worker(options, index, threads, root.split(), root.split()));
+        }
+
+        var scores = new int[options.games()];
+        var maxTileCounts = new long[MAX_EXPONENT + 1];
+        var moves = 0L;
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            var results = new ArrayList<Future<Worker>>(threads);
+            for (var worker : workers) {
+                results.add(executor.submit(() -> worker.play(scores)));
+            }
+            for (var result : results) {
+                var worker = result.get();
+                moves += worker.moves;
+                for (int exponent = 0; exponent <= MAX_EXPONENT; exponent++) {
+                    maxTileCounts[exponent] += worker.maxTileCounts[exponent];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+        return new SimulationReport(options, moves, System.nanoTime() - started, scores, maxTileCounts);
+    }
+
+    /**
+     * Plays games {@code index}, {@code index + stride}, ... of a run.
+     */
+    private static final class Worker {
+
+        private final Options options;
+        private final int index;
+        private final int stride;
+        private final RandomGenerator choices;
+        private final GameModel model;
+        private final long[] maxTileCounts = new long[MAX_EXPONENT + 1];
+        private long moves;
+
+        Worker(Options options, int index, int stride, RandomGenerator spawns, RandomGenerator choices) {
+            this.options = options;
+            this.index = index;
+            this.stride = stride;
+            this.choices = choices;
+            this.model = new GameModel(new GridOperator(options.gridSize()), spawns);
+        }
+
+        Worker play(int[] scores) {
+            for (int game = index; game < scores.length; game += stride) {
+                scores[game] = playGame();
+                maxTileCounts[Integer.numberOfTrailingZeros(model.snapshot().maxValue())]++;
+            }
+            return this;
+        }
+
+        private int playGame() {
+            var score = 0;
+            model.startGame();
+            for (var direction = options.policy().choose(model, choices); direction != null;
+                    direction = options.policy().choose(model, choices)) {
+                score += model.play(direction);
+                moves++;
+                model.addRandomTile();
+            }
+            return score;
+        }
+    }
+}
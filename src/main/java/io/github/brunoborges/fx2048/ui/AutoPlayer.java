@@ -0,0 +1,273 @@
+package io.github.brunoborges.fx2048.ui;
+
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.github.brunoborges.fx2048.ai.Evaluator;
+import io.github.brunoborges.fx2048.ai.ExpectimaxSearch;
+import io.github.brunoborges.fx2048.ai.HeuristicEvaluator;
+import io.github.brunoborges.fx2048.ai.MonteCarloSearch;
+import io.github.brunoborges.fx2048.ai.MoveSearch;
+import io.github.brunoborges.fx2048.ai.NTupleNetwork;
+import io.github.brunoborges.fx2048.ai.ParallelExpectimaxSearch;
+import io.github.brunoborges.fx2048.ai.SearchResult;
+import io.github.brunoborges.fx2048.ai.TranspositionTable;
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameRecord;
+import io.github.brunoborges.fx2048.game.Location;
+import io.github.brunoborges.fx2048.game.SpawnStrategy;
+
+/**
+ * Chooses moves for the "AI" mode on a background thread.
+ * <p>
+ * {@link GameManager} asks for a move whenever the board is idle; the search
+ * runs on a single daemon thread and the chosen direction is handed back on
+ * the JavaFX thread. Results of requests made before the latest
+ * {@link #requestMove} or {@link #stop()} are dropped. The time budget per move
+ * is read from the {@value #BUDGET_PROPERTY} system property, in milliseconds,
+ * and {@value #PARALLELISM_PROPERTY} above 1 switches to a
+ * {@link ParallelExpectimaxSearch} with that many threads. Both use a
+ * {@link TranspositionTable} sized in MiB by {@value #TABLE_MEGABYTES_PROPERTY}
+ * (default 2, {@code 0} disables it). Setting {@value #SEARCH_PROPERTY} to
+ * {@code montecarlo} plays random playouts with a {@link MonteCarloSearch}
+ * instead. {@value #NETWORK_PROPERTY} names an {@link NTupleNetwork} checkpoint
+ * that replaces {@link HeuristicEvaluator} in the expectimax searches; it is
+ * loaded off-heap once and kept for the life of the application.
+ * <p>
+ * In turbo mode ({@link #startTurbo}) the search thread plays on its own
+ * engine without waiting for the board, with the budget per move read from
+ * {@value #TURBO_BUDGET_PROPERTY}, and only publishes the latest
+ * {@link TurboFrame}; the JavaFX thread picks it up with {@link #pollTurbo()}
+ * at most once per pulse, so moves that happen between two pulses are never
+ * drawn.
+ */
+final class AutoPlayer {
+
+    static final String BUDGET_PROPERTY = "fx2048.autoplay.budgetMillis";
+    static final long DEFAULT_BUDGET_MILLIS = 50;
+    static final String PARALLELISM_PROPERTY = "fx2048.autoplay.parallelism";
+    static final String TABLE_MEGABYTES_PROPERTY = "fx2048.autoplay.tableMegabytes";
+    static final String SEARCH_PROPERTY = "fx2048.autoplay.search";
+    static final String NETWORK_PROPERTY = "fx2048.autoplay.network";
+    static final String TURBO_BUDGET_PROPERTY = "fx2048.autoplay.turboBudgetMillis";
+    static final long DEFAULT_TURBO_BUDGET_MILLIS = 5;
+
+    private static final Logger LOGGER = Logger.getLogger(AutoPlayer.class.getName());
+
+    private static NTupleNetwork network;
+    private static boolean networkLoaded;
+
+    private final MoveSearch search;
+    private final Duration budget;
+    private final AtomicReference<TurboFrame> turboFrame = new AtomicReference<>();
+    private final Queue<GameRecord.Step> turboSteps = new ConcurrentLinkedQueue<>();
+    private ExecutorService executor;
+    private boolean running;
+    private volatile boolean turbo;
+    private volatile long generation;
+
+    /**
+     * The board after a run of turbo moves, with the totals since
+     * {@link #startTurbo} was called.
+     *
+     * @param won whether any of those moves reached 2048
+     * @param finished whether no move is left and the turbo loop has ended
+     */
+    record TurboFrame(BoardState board, int points, int moves, boolean won, boolean finished) {}
+
+    AutoPlayer(int gridSize) {
+        this.search = createSearch(gridSize);
+        this.budget = budget();
+    }
+
+    static Duration budget() {
+        return Duration.ofMillis(Math.max(1, Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MILLIS)));
+    }
+
+    /**
+     * Creates the search configured by the system properties, also used for hints.
+     */
+    static MoveSearch createSearch(int gridSize) {
+        if ("montecarlo".equalsIgnoreCase(System.getProperty(SEARCH_PROPERTY))) {
+            return new MonteCarloSearch(gridSize);
+        }
+        var parallelism = Integer.getInteger(PARALLELISM_PROPERTY, 1);
+        var tableBytes = Long.getLong(TABLE_MEGABYTES_PROPERTY, TranspositionTable.DEFAULT_MAX_BYTES >> 20) << 20;
+        var table = tableBytes > 0 ? new TranspositionTable(tableBytes) : null;
+        var evaluator = evaluator(gridSize);
+        return parallelism > 1
+                ? new ParallelExpectimaxSearch(gridSize, evaluator,
+                        ParallelExpectimaxSearch.Options.withParallelism(parallelism), table)
+                : new ExpectimaxSearch(gridSize, evaluator, table);
+    }
+
+    /**
+     * Returns the network named by {@value #NETWORK_PROPERTY} when it was
+     * trained for {@code gridSize}, or the heuristic otherwise.
+     */
+    static synchronized Evaluator evaluator(int gridSize) {
+        if (!networkLoaded) {
+            networkLoaded = true;
+            var path = System.getProperty(NETWORK_PROPERTY);
+            if (path != null) {
+                try {
+                    // weights stay off the small application heap
+                    network = NTupleNetwork.load(Path.of(path), NTupleNetwork.Storage.OFF_HEAP);
+                    LOGGER.log(Level.INFO, "Loaded n-tuple network {0} ({1} KiB)",
+                            new Object[] { path, network.memoryBytes() >> 10 });
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Cannot load n-tuple network " + path, e);
+                }
+            }
+        }
+        if (network != null && network.gridSize() == gridSize) {
+            return network;
+        }
+        return HeuristicEvaluator.INSTANCE;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    boolean isTurbo() {
+        return running && turbo;
+    }
+
+    void start() {
+        running = true;
+    }
+
+    void stop() {
+        running = false;
+        turbo = false;
+        generation++;
+        turboFrame.set(null);
+    }
+
+    /**
+     * Plays from {@code board} on the search thread, as fast as the search
+     * allows, until the game is over or {@link #stop()} is called. Tiles are
+     * spawned by {@code spawns}, which is used on the search thread only.
+     */
+    void startTurbo(BoardState board, SpawnStrategy spawns) {
+        running = true;
+        turbo = true;
+        turboFrame.set(null);
+        turboSteps.clear();
+        var request = ++generation;
+        var budget = Duration.ofMillis(Math.max(1, Long.getLong(TURBO_BUDGET_PROPERTY, DEFAULT_TURBO_BUDGET_MILLIS)));
+        executor().execute(() -> {
+            var engine = new BitBoardEngine(board.gridSize(), new SplittableRandom());
+            engine.restore(board);
+            var points = 0;
+            var moves = 0;
+            var won = false;
+            var current = board;
+            while (request == generation) {
+                Direction direction;
+                try {
+                    direction = search.search(current, budget).direction();
+                } catch (RejectedExecutionException | CancellationException e) {
+                    return;
+                }
+                if (direction == null || request != generation) {
+                    break;
+                }
+                points += engine.move(direction, null);
+                won |= engine.lastMoveWon();
+                moves++;
+                var cell = spawns.spawn(engine);
+                // queued before the frame that counts it, so a frame's moves can always be polled
+                turboSteps.add(cell < 0 ? new GameRecord.Step(direction, null, 0)
+                        : new GameRecord.Step(direction, new Location(cell / board.gridSize(), cell % board.gridSize()),
+                                1 << engine.exponentAt(cell)));
+                current = engine.snapshot();
+                turboFrame.set(new TurboFrame(current, points, moves, won, false));
+            }
+            if (request == generation) {
+                turboFrame.set(new TurboFrame(current, points, moves, won, true));
+            }
+        });
+    }
+
+    /**
+     * Returns the latest turbo frame not yet taken, or {@code null}.
+     */
+    TurboFrame pollTurbo() {
+        return turboFrame.getAndSet(null);
+    }
+
+    /**
+     * Returns the oldest turbo move not yet taken, or {@code null}. All the
+     * moves counted by a {@link TurboFrame} can be taken once it was polled.
+     */
+    GameRecord.Step pollTurboStep() {
+        return turboSteps.poll();
+    }
+
+    /**
+     * Searches {@code board} off the JavaFX thread and passes it, with the
+     * chosen direction, to {@code onChosen} on the JavaFX thread. The direction
+     * is {@code null} when no move is possible.
+     */
+    void requestMove(BoardState board, BiConsumer<BoardState, Direction> onChosen) {
+        if (!running) {
+            return;
+        }
+        var request = ++generation;
+        executor().execute(() -> {
+            SearchResult result;
+            try {
+                result = search.search(board, budget);
+            } catch (RejectedExecutionException | CancellationException e) {
+                // the search threads were shut down by dispose()
+                return;
+            }
+            LOGGER.log(Level.FINE, "Chose {0} at depth {1} ({2} nodes, {3} ms, {4} nodes/s)", new Object[] {
+                    result.direction(), result.depth(), result.nodes(), result.elapsedNanos() / 1_000_000,
+                    Math.round(result.nodesPerSecond()) });
+            Platform.runLater(() -> {
+                if (running && request == generation) {
+                    onChosen.accept(board, result.direction());
+                }
+            });
+        });
+    }
+
+    void dispose() {
+        stop();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        search.close();
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(task -> {
+                var thread = new Thread(task, "fx2048-autoplayer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
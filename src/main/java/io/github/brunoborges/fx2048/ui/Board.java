@@ -2,8 +2,9 @@ package io.github.brunoborges.fx2048.ui;
 
 
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.IntConsumer;
 
 import javafx.animation.KeyFrame;
@@ -26,16 +27,22 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.transform.Scale;
 import javafx.util.Duration;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameRecord;
 import io.github.brunoborges.fx2048.game.GameTimer;
 import io.github.brunoborges.fx2048.game.GridOperator;
 import io.github.brunoborges.fx2048.game.Location;
 import io.github.brunoborges.fx2048.game.Tile;
 import io.github.brunoborges.fx2048.persistence.RecordManager;
 import io.github.brunoborges.fx2048.persistence.SessionManager;
+import io.github.brunoborges.fx2048.persistence.SessionWriter;
 import io.github.brunoborges.fx2048.persistence.UserSettings;
 import io.github.brunoborges.fx2048.settings.AnimationSpeed;
 import io.github.brunoborges.fx2048.settings.AnimationSpeedSetting;
 import io.github.brunoborges.fx2048.settings.AutoSaveSetting;
+import io.github.brunoborges.fx2048.settings.GameMode;
+import io.github.brunoborges.fx2048.settings.GameModeSetting;
 import io.github.brunoborges.fx2048.settings.GridSizeSetting;
 
 /**
@@ -76,16 +83,26 @@ public class Board extends Pane {
     private final Button bRestore = new Button("Restore");
     private final Button bApplySettings = new Button("Apply");
     private final Button bQuit = new Button("Quit");
+    private final Button bAnalyze = new Button("Analyze");
+    private final Button bBackToGameOver = new Button("Back");
 
     private final HBox hToolbar = new HBox();
 
     private final Label lblTime = new Label();
+    private final Label lblHint = new Label();
+    private final Label lblMoveRate = new Label();
 
     private final int gridDimension = GRID_DIMENSION;
     private final double gridScale;
     private final GridOperator gridOperator;
-    private final SessionManager sessionManager;
+    private final SessionWriter sessionWriter;
     private final IntConsumer gridSizeChangeHandler;
+    private Consumer<GameMode> gameModeChangeHandler = _ -> {
+    };
+    private Runnable analyzeHandler = () -> {
+    };
+    private Runnable postMortemCloseHandler = () -> {
+    };
     private final SettingsPanel settingsPanel;
     private AnimationSpeed animationSpeed;
 
@@ -100,11 +117,12 @@ public class Board extends Pane {
         animationSpeed = UserSettings.LOCAL.getAnimationSpeed();
         gridScale = calculateGridScale(grid.getGridSize());
         overlayPanel = new OverlayPanel(gridDimension, TOP_HEIGHT, GAP_HEIGHT);
-        sessionManager = new SessionManager(gridOperator);
+        sessionWriter = new SessionWriter(new SessionManager(gridOperator));
         settingsPanel = new SettingsPanel(List.of(
                 new GridSizeSetting(gridOperator, gridSizeChangeHandler),
                 new AutoSaveSetting(),
-                new AnimationSpeedSetting(this::setAnimationSpeed)));
+                new AnimationSpeedSetting(this::setAnimationSpeed),
+                new GameModeSetting(gameMode -> gameModeChangeHandler.accept(gameMode))));
 
         createScore();
         createGrid();
@@ -194,9 +212,13 @@ public class Board extends Pane {
         var hTime = new HBox();
         hTime.setMinSize(gridDimension, GAP_HEIGHT);
         hTime.setAlignment(Pos.BOTTOM_RIGHT);
+        lblHint.getStyleClass().addAll("game-label", "game-hint");
+        lblMoveRate.getStyleClass().addAll("game-label", "game-hint");
+        var hTimeFill = new HBox();
+        HBox.setHgrow(hTimeFill, Priority.ALWAYS);
         lblTime.getStyleClass().addAll("game-label", "game-time");
         lblTime.textProperty().bind(gameTimer.clockProperty());
-        hTime.getChildren().add(lblTime);
+        hTime.getChildren().addAll(lblHint, lblMoveRate, hTimeFill, lblTime);
 
         vGame.getChildren().add(hTime);
         getChildren().add(vGame);
@@ -301,6 +323,8 @@ public class Board extends Pane {
     }
 
     private final Overlay wonListener = new Overlay("You win!", "", bContinue, bTry, "game-overlay-won", "game-lblWon");
+    private final Overlay gameOverListener = new Overlay("Game over!", "", bAnalyze, bTry, "game-overlay-over",
+            "game-lblOver");
 
     private class Overlay implements ChangeListener<Boolean> {
 
@@ -319,10 +343,12 @@ public class Board extends Pane {
 
         @Override
         public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean newValue) {
-            if (!newValue) {
-                return;
+            if (newValue) {
+                show();
             }
+        }
 
+        void show() {
             gameTimer.pause();
             overlayPanel.showMessage(style1, message, warning, style2, leftButton, rightButton);
 
@@ -369,9 +395,14 @@ public class Board extends Pane {
         bQuit.getStyleClass().add("game-button");
         bQuit.setOnAction(_ -> exitGame());
 
+        bAnalyze.getStyleClass().add("game-button");
+        bAnalyze.setOnAction(_ -> analyzeHandler.run());
+
+        bBackToGameOver.getStyleClass().add("game-button");
+        bBackToGameOver.setOnAction(_ -> closePostMortem());
+
         state.gameWonProperty.addListener(wonListener);
-        state.gameOverProperty
-                .addListener(new Overlay("Game over!", "", bTry, null, "game-overlay-over", "game-lblOver"));
+        state.gameOverProperty.addListener(gameOverListener);
         state.gamePauseProperty.addListener(
                 new Overlay("Game Paused", "", bContinue, null, "game-overlay-pause", "game-lblPause"));
         state.gameTryAgainProperty.addListener(new Overlay("Try Again?", "Current game will be deleted", bTry, bContinueNo,
@@ -440,6 +471,29 @@ public class Board extends Pane {
         showOverlay(bContinue);
     }
 
+    /**
+     * Shows the post-mortem over the game-over overlay; {@code onClose} runs
+     * when the player goes back to it. The game stays over and its timer
+     * stays paused.
+     */
+    PostMortemContent showPostMortem(int moveCount, Runnable onClose) {
+        var content = new PostMortemContent(gridDimension, moveCount);
+        postMortemCloseHandler = onClose;
+        gameTimer.pause();
+        overlayPanel.showContent("game-overlay-pause", bTry, bBackToGameOver, content);
+        showOverlay(bTry);
+        return content;
+    }
+
+    private void closePostMortem() {
+        postMortemCloseHandler.run();
+        postMortemCloseHandler = () -> {
+        };
+        gameOverListener.show();
+        overlayPanel.setDefaultButton(bTry);
+        overlayPanel.focusFirstButton();
+    }
+
     public void animateScore() {
         if (state.gameMovePoints.get() == 0) {
             return;
@@ -480,6 +534,17 @@ public class Board extends Pane {
         return animationSpeed.isInstant();
     }
 
+    void setGameModeChangeHandler(Consumer<GameMode> gameModeChangeHandler) {
+        this.gameModeChangeHandler = gameModeChangeHandler;
+    }
+
+    /**
+     * Sets what the "Analyze" button of the game over overlay does.
+     */
+    void setAnalyzeHandler(Runnable analyzeHandler) {
+        this.analyzeHandler = analyzeHandler;
+    }
+
     private void setAnimationSpeed(AnimationSpeed animationSpeed) {
         this.animationSpeed = animationSpeed;
     }
@@ -551,6 +616,34 @@ public class Board extends Pane {
         tile.setLayoutY(layoutY);
     }
 
+    /**
+     * Shows the suggested move above the grid, followed by {@code detail}.
+     */
+    void showHint(Direction direction, String detail) {
+        lblHint.setText("HINT " + arrow(direction) + detail);
+    }
+
+    static String arrow(Direction direction) {
+        return switch (direction) {
+            case UP -> "\u2191";
+            case RIGHT -> "\u2192";
+            case DOWN -> "\u2193";
+            case LEFT -> "\u2190";
+        };
+    }
+
+    void clearHint() {
+        lblHint.setText("");
+    }
+
+    void showMoveRate(double movesPerSecond) {
+        lblMoveRate.setText("TURBO %,.0f moves/s".formatted(movesPerSecond));
+    }
+
+    void clearMoveRate() {
+        lblMoveRate.setText("");
+    }
+
     public void addPoints(int points) {
         state.gameMovePoints.set(state.gameMovePoints.get() + points);
         state.gameScoreProperty.set(state.gameScoreProperty.get() + points);
@@ -636,10 +729,10 @@ public class Board extends Pane {
     /*
      * Once we have confirmation
      */
-    public void saveSession(Map<Location, Integer> gridValues) {
+    public void saveSession(BoardState board) {
         state.saveGame.set(false);
-        if (sessionManager.saveSession(gridValues, state.gameScoreProperty.getValue(),
-                gameTimer.elapsedNanos(), state.gameMoveCountProperty.getValue())) {
+        sessionWriter.submit(currentSession(board));
+        if (sessionWriter.flush()) {
             keepGoing();
         } else {
             showMessageOverlay("Save failed", "Session could not be written");
@@ -655,31 +748,28 @@ public class Board extends Pane {
     /*
      * Once we have confirmation
      */
-    public boolean restoreSession(Map<Location, Integer> gridValues) {
+    public Optional<BoardState> restoreSavedSession() {
         state.restoreGame.set(false);
-        var restoredSession = sessionManager.restoreSession();
+        var restoredSession = sessionWriter.restore();
         if (restoredSession.isEmpty()) {
             showMessageOverlay("Restore failed", "No valid saved game found");
-            return false;
+            return Optional.empty();
         }
 
         doClearGame();
         gameTimer.pause();
-        gridValues.clear();
-        gridValues.putAll(restoredSession.get().gridValues());
+        var restoredBoard = restoredSession.get().board();
         state.gameScoreProperty.set(restoredSession.get().score());
         state.gameMoveCountProperty.set(restoredSession.get().moveCount());
         // check tiles>=2048
         state.gameWonProperty.set(false);
-        gridValues.forEach((_, value) -> {
-            if (value >= GameManager.FINAL_VALUE_TO_WIN) {
-                state.gameWonProperty.removeListener(wonListener);
-                state.gameWonProperty.set(true);
-                state.gameWonProperty.addListener(wonListener);
-            }
-        });
+        if (restoredBoard.maxValue() >= GameManager.FINAL_VALUE_TO_WIN) {
+            state.gameWonProperty.removeListener(wonListener);
+            state.gameWonProperty.set(true);
+            state.gameWonProperty.addListener(wonListener);
+        }
         gameTimer.restore(restoredSession.get().time());
-        return true;
+        return Optional.of(restoredBoard);
     }
 
     public void saveRecord() {
@@ -694,38 +784,55 @@ public class Board extends Pane {
 
     /**
      * Silently save the session without confirmation overlays. Used for auto-save.
+     * The session is written in the background; {@link #dispose()} waits for it.
+     */
+    void silentSaveSession(BoardState board) {
+        sessionWriter.submit(currentSession(board));
+    }
+
+    /**
+     * Appends {@code step}, the move that produced {@code board}, to the move
+     * journal in the background. Used for the journal auto-save mode.
      */
-    boolean silentSaveSession(Map<Location, Integer> gridValues) {
-        return sessionManager.saveSession(gridValues, state.gameScoreProperty.getValue(),
-                gameTimer.elapsedNanos(), state.gameMoveCountProperty.getValue());
+    void journalMove(GameRecord.Step step, BoardState board) {
+        sessionWriter.journal(step, currentSession(board));
+    }
+
+    /**
+     * Makes the next journaled move start from a new checkpoint, for a new or restored game.
+     */
+    void restartJournal() {
+        sessionWriter.restartJournal();
+    }
+
+    private SessionManager.SessionData currentSession(BoardState board) {
+        return new SessionManager.SessionData(board, state.gameScoreProperty.getValue(), gameTimer.elapsedNanos(),
+                state.gameMoveCountProperty.getValue());
     }
 
     /**
      * Silently restore the session without confirmation overlays. Used for auto-restore on startup.
-     * Returns true if a session was restored, false if no saved session was found.
+     * Returns the restored board, or an empty optional if no saved session was found.
      */
-    boolean silentRestoreSession(Map<Location, Integer> gridValues) {
-        var restoredSession = sessionManager.restoreSession();
+    Optional<BoardState> silentRestoreSession() {
+        var restoredSession = sessionWriter.restore();
         if (restoredSession.isEmpty()) {
-            return false;
+            return Optional.empty();
         }
 
         doClearGame();
         gameTimer.pause();
-        gridValues.clear();
-        gridValues.putAll(restoredSession.get().gridValues());
+        var restoredBoard = restoredSession.get().board();
         state.gameScoreProperty.set(restoredSession.get().score());
         state.gameMoveCountProperty.set(restoredSession.get().moveCount());
         state.gameWonProperty.set(false);
-        gridValues.forEach((_, value) -> {
-            if (value >= GameManager.FINAL_VALUE_TO_WIN) {
-                state.gameWonProperty.removeListener(wonListener);
-                state.gameWonProperty.set(true);
-                state.gameWonProperty.addListener(wonListener);
-            }
-        });
+        if (restoredBoard.maxValue() >= GameManager.FINAL_VALUE_TO_WIN) {
+            state.gameWonProperty.removeListener(wonListener);
+            state.gameWonProperty.set(true);
+            state.gameWonProperty.addListener(wonListener);
+        }
         gameTimer.restore(restoredSession.get().time());
-        return true;
+        return Optional.of(restoredBoard);
     }
 
     public void removeTiles(Set<Tile> mergedToBeRemoved) {
@@ -734,6 +841,7 @@ public class Board extends Pane {
 
     public void dispose() {
         gameTimer.pause();
+        sessionWriter.close();
     }
 
 }
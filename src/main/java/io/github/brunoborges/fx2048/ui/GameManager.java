@@ -2,6 +2,7 @@ package io.github.brunoborges.fx2048.ui;
 
 
 import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
 import javafx.animation.Interpolator;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
@@ -14,20 +15,32 @@ import javafx.beans.property.SimpleBooleanProperty;
 import javafx.scene.Group;
 import javafx.util.Duration;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import io.github.brunoborges.fx2048.ai.EvilSpawner;
+import io.github.brunoborges.fx2048.ai.HeuristicEvaluator;
+import io.github.brunoborges.fx2048.ai.ReplayAnalyzer;
+import io.github.brunoborges.fx2048.game.BoardState;
 import io.github.brunoborges.fx2048.game.Direction;
 import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GameRecord;
 import io.github.brunoborges.fx2048.game.GridOperator;
 import io.github.brunoborges.fx2048.game.Location;
+import io.github.brunoborges.fx2048.game.SpawnStrategy;
 import io.github.brunoborges.fx2048.game.Tile;
 import io.github.brunoborges.fx2048.game.UndoManager;
 import io.github.brunoborges.fx2048.persistence.UserSettings;
 import io.github.brunoborges.fx2048.settings.AutoSaveMode;
+import io.github.brunoborges.fx2048.settings.GameMode;
 
 /**
  * @author Bruno Borges
@@ -37,6 +50,21 @@ public class GameManager extends Group {
 
     public static final int FINAL_VALUE_TO_WIN = GameModel.FINAL_VALUE_TO_WIN;
 
+    /**
+     * Shows diagnostics such as the hint latency when set to {@code true}.
+     */
+    static final String DEBUG_PROPERTY = "fx2048.debug";
+    /**
+     * The player moves the evil spawner looks ahead, from 1 to {@value EvilSpawner#MAX_DEPTH}.
+     */
+    static final String EVIL_DEPTH_PROPERTY = "fx2048.evil.depth";
+    /**
+     * The time the evil spawner may search per spawn, in milliseconds.
+     */
+    static final String EVIL_TIME_CAP_PROPERTY = "fx2048.evil.timeCapMillis";
+
+    private static final Logger LOGGER = Logger.getLogger(GameManager.class.getName());
+
     private static final Duration BASE_ANIMATION_EXISTING_TILE = Duration.millis(65);
     private static final Duration BASE_ANIMATION_NEWLY_ADDED_TILE = Duration.millis(125);
     private static final Duration BASE_ANIMATION_MERGED_TILE = Duration.millis(80);
@@ -47,7 +75,25 @@ public class GameManager extends Group {
 
     private final Board board;
     private final GameModel model;
+    private final int gridSize;
+    private GameMode gameMode;
     private final UndoManager undoManager = new UndoManager();
+    private final AutoPlayer autoPlayer;
+    private final HintEngine hintEngine;
+    private final boolean debug = Boolean.getBoolean(DEBUG_PROPERTY);
+    private boolean hintsOn;
+    private long hintRequestedAt;
+    private final AnimationTimer turboTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            drawTurboFrame();
+        }
+    };
+    private boolean turboOn;
+    private int turboRecordedMoves;
+    private int turboStartScore;
+    private int turboStartMoveCount;
+    private long turboStartedAt;
     private final BooleanProperty undoAvailable = new SimpleBooleanProperty(false);
     private Animation shakingAnimation;
     private ParallelTransition activeTileMovement;
@@ -55,7 +101,14 @@ public class GameManager extends Group {
     private boolean shakingAnimationPlaying = false;
     private boolean shakingXYState = false;
 
-    private record MoveSnapshot(Map<Location, Integer> tiles, int score, int moveCount) {}
+    private record MoveSnapshot(BoardState tiles, int score, int moveCount) {}
+
+    // the moves since the last new game or restore, for the post-mortem
+    private BoardState recordStart;
+    private final List<GameRecord.Step> recordSteps = new ArrayList<>();
+    private Direction recordedMove;
+    private ReplayAnalyzer analyzer;
+    private Thread analysis;
 
     public GameManager() {
         this(UserSettings.LOCAL.getGridSize());
@@ -76,8 +129,14 @@ public class GameManager extends Group {
     public GameManager(int gridSize, IntConsumer gridSizeChangeHandler) {
         var gridOperator = new GridOperator(gridSize);
         model = new GameModel(gridOperator);
+        this.gridSize = gridSize;
+        setGameMode(UserSettings.LOCAL.getGameMode());
+        autoPlayer = new AutoPlayer(gridSize);
+        hintEngine = new HintEngine(gridSize);
         board = new Board(gridOperator, gridSizeChangeHandler);
         board.setToolBar(createToolbarPanel());
+        board.setGameModeChangeHandler(this::setGameMode);
+        board.setAnalyzeHandler(this::analyzeGame);
         getChildren().add(board);
 
         board.clearGameProperty().addListener((_, _, newValue) -> {
@@ -101,6 +160,14 @@ public class GameManager extends Group {
                 doSaveSession();
             }
         });
+        board.isLayerOn().addListener((_, _, newValue) -> {
+            if (newValue) {
+                stopTurbo();
+                autoPlayer.stop();
+            } else {
+                cancelAnalysis();
+            }
+        });
 
         startGame();
     }
@@ -121,6 +188,8 @@ public class GameManager extends Group {
         redrawTilesInGameGrid();
         board.setUndoCount(undoManager.remainingUndos());
         board.startGame();
+        startRecord();
+        requestHint(System.nanoTime());
     }
 
     /**
@@ -133,7 +202,10 @@ public class GameManager extends Group {
 
     private void syncTileMapFromModel() {
         gameGrid.clear();
-        model.snapshot().forEach((location, value) -> gameGrid.put(location, value == 0 ? null : createTile(location, value)));
+        model.snapshot().forEachCell((x, y, value) -> {
+            var location = new Location(x, y);
+            gameGrid.put(location, value == 0 ? null : createTile(location, value));
+        });
     }
 
     private Tile createTile(Location location, int value) {
@@ -154,6 +226,7 @@ public class GameManager extends Group {
             return;
         }
 
+        var movedAt = System.nanoTime();
         board.setPoints(0);
         mergedToBeRemoved.clear();
         var previousSnapshot = createMoveSnapshot();
@@ -162,6 +235,8 @@ public class GameManager extends Group {
         applyMovements(moveResult, parallelTransition);
 
         if (moveResult.tilesMoved()) {
+            recordedMove = direction;
+            cancelHint(movedAt);
             setUndoSnapshot(previousSnapshot);
             board.incrementMoveCount();
             undoManager.awardEarnedUndos(moveResult.movements());
@@ -213,15 +288,22 @@ public class GameManager extends Group {
         setMovingTiles(false);
 
         var addedTile = model.addRandomTile();
+        recordSteps.add(addedTile.map(tile -> new GameRecord.Step(recordedMove, tile.location(), tile.value()))
+                .orElseGet(() -> new GameRecord.Step(recordedMove, null, 0)));
         if (addedTile.isPresent()) {
             addRandomTileToBoard(addedTile.get(), animateAddedTile);
-        } else if (!model.hasMergeMovements()) {
+        } else if (model.isGameOver()) {
             board.setGameOver(true);
         }
 
-        if (UserSettings.LOCAL.getAutoSave() == AutoSaveMode.AFTER_EVERY_MOVE) {
-            doAutoSaveSession();
+        switch (UserSettings.LOCAL.getAutoSave()) {
+            case AFTER_EVERY_MOVE -> doAutoSaveSession();
+            case JOURNAL -> board.journalMove(recordSteps.getLast(), model.snapshot());
+            default -> {
+            }
         }
+        requestAutoMove();
+        requestHint(hintRequestedAt);
     }
 
     private void applyMovements(GameModel.MoveResult moveResult, ParallelTransition parallelTransition) {
@@ -287,6 +369,10 @@ public class GameManager extends Group {
         board.setMoveCount(snapshot.moveCount());
         redrawTilesInGameGrid();
         setUndoSnapshot(null);
+        if (!recordSteps.isEmpty()) {
+            recordSteps.removeLast();
+        }
+        requestHint(System.nanoTime());
     }
 
     private void setUndoSnapshot(MoveSnapshot snapshot) {
@@ -318,7 +404,7 @@ public class GameManager extends Group {
         if (!animate || board.animationsDisabled()) {
             tile.setScaleX(1.0);
             tile.setScaleY(1.0);
-            if (model.isFull() && !model.hasMergeMovements()) {
+            if (model.isGameOver()) {
                 board.setGameOver(true);
             }
             return;
@@ -341,7 +427,7 @@ public class GameManager extends Group {
         scaleTransition.setToY(1.0);
         scaleTransition.setInterpolator(Interpolator.EASE_OUT);
         scaleTransition.setOnFinished(_ -> {
-            if (model.isFull() && !model.hasMergeMovements()) {
+            if (model.isGameOver()) {
                 board.setGameOver(true);
             }
         });
@@ -423,11 +509,184 @@ public class GameManager extends Group {
      * Move the tiles according user input if overlay is not on.
      */
     public void move(Direction direction) {
-        if (!board.isLayerOn().get()) {
+        if (!board.isLayerOn().get() && !turboOn) {
             moveTiles(direction);
         }
     }
 
+    /**
+     * Starts or stops the "AI" mode, which plays the game with an expectimax
+     * search until the game ends or an overlay is shown.
+     */
+    public void toggleAutoPlay() {
+        if (turboOn) {
+            stopTurbo();
+        } else if (autoPlayer.isRunning()) {
+            autoPlayer.stop();
+        } else if (!board.isLayerOn().get() && !model.isGameOver()) {
+            autoPlayer.start();
+            if (!isMovingTiles()) {
+                requestAutoMove();
+            }
+        }
+    }
+
+    /**
+     * Starts or stops the turbo "AI" mode. The auto player then moves as fast
+     * as its search allows, without animations; the grid is redrawn from the
+     * latest board at most once per pulse, and the moves per second are shown
+     * above it.
+     */
+    public void toggleTurbo() {
+        if (turboOn) {
+            stopTurbo();
+            return;
+        }
+        if (board.isLayerOn().get() || model.isGameOver()) {
+            return;
+        }
+        if (isMovingTiles()) {
+            finishActiveTileMovement();
+        }
+        cancelHint(0);
+        setUndoSnapshot(null);
+        board.setPoints(0);
+        turboOn = true;
+        turboStartScore = board.getScore();
+        turboStartMoveCount = board.getMoveCount();
+        turboStartedAt = System.nanoTime();
+        turboRecordedMoves = 0;
+        autoPlayer.startTurbo(model.snapshot(), createSpawnStrategy());
+        turboTimer.start();
+    }
+
+    private void drawTurboFrame() {
+        var frame = autoPlayer.pollTurbo();
+        if (frame == null) {
+            return;
+        }
+        for (; turboRecordedMoves < frame.moves(); turboRecordedMoves++) {
+            recordSteps.add(autoPlayer.pollTurboStep());
+        }
+        model.restoreSnapshot(frame.board());
+        syncTileMapFromModel();
+        redrawTilesInGameGrid();
+        board.setScore(turboStartScore + frame.points());
+        board.setMoveCount(turboStartMoveCount + frame.moves());
+        board.showMoveRate(frame.moves() * 1e9 / Math.max(1, System.nanoTime() - turboStartedAt));
+        if (frame.finished()) {
+            stopTurbo();
+            board.setGameOver(model.isGameOver());
+        }
+        if (frame.won()) {
+            board.setGameWin(true);
+        }
+    }
+
+    private void stopTurbo() {
+        if (!turboOn) {
+            return;
+        }
+        turboOn = false;
+        turboTimer.stop();
+        autoPlayer.stop();
+        board.clearMoveRate();
+        var autoSave = UserSettings.LOCAL.getAutoSave();
+        if (autoSave == AutoSaveMode.AFTER_EVERY_MOVE || autoSave == AutoSaveMode.JOURNAL) {
+            doAutoSaveSession();
+        }
+        requestHint(System.nanoTime());
+    }
+
+    /**
+     * Switches how tiles are spawned from the next move on.
+     */
+    private void setGameMode(GameMode gameMode) {
+        this.gameMode = gameMode;
+        model.setSpawnStrategy(createSpawnStrategy());
+    }
+
+    /**
+     * Creates a spawn strategy for the current game mode; strategies keep
+     * search state, so each thread that spawns tiles needs its own.
+     */
+    private SpawnStrategy createSpawnStrategy() {
+        if (gameMode != GameMode.EVIL) {
+            return SpawnStrategy.RANDOM;
+        }
+        var defaults = EvilSpawner.Options.defaults();
+        var depth = Math.clamp(Integer.getInteger(EVIL_DEPTH_PROPERTY, defaults.depth()), 1, EvilSpawner.MAX_DEPTH);
+        var timeCapMillis = Math.max(0, Long.getLong(EVIL_TIME_CAP_PROPERTY, defaults.timeCap().toMillis()));
+        return new EvilSpawner(gridSize, HeuristicEvaluator.INSTANCE,
+                new EvilSpawner.Options(depth, java.time.Duration.ofMillis(timeCapMillis)));
+    }
+
+    private void requestAutoMove() {
+        if (!autoPlayer.isRunning()) {
+            return;
+        }
+        if (model.isGameOver()) {
+            autoPlayer.stop();
+            return;
+        }
+        autoPlayer.requestMove(model.snapshot(), this::playAutoMove);
+    }
+
+    /**
+     * Plays a move chosen by the auto player, unless the board changed while
+     * it was searching; tile motion that is still running asks for the next
+     * move itself when it finishes.
+     */
+    private void playAutoMove(BoardState searched, Direction direction) {
+        if (board.isLayerOn().get() || isMovingTiles()) {
+            return;
+        }
+        if (direction == null || !searched.equals(model.snapshot())) {
+            requestAutoMove();
+            return;
+        }
+        move(direction);
+    }
+
+    /**
+     * Turns hints on or off. While on, the suggested move for every new board
+     * is computed in the background and shown above the grid.
+     */
+    public void toggleHints() {
+        hintsOn = !hintsOn;
+        if (hintsOn) {
+            requestHint(System.nanoTime());
+        } else {
+            cancelHint(0);
+        }
+    }
+
+    private void requestHint(long requestedAt) {
+        if (!hintsOn || turboOn || isMovingTiles()) {
+            return;
+        }
+        hintRequestedAt = requestedAt;
+        var hinted = model.snapshot();
+        hintEngine.requestHint(hinted, direction -> {
+            if (direction == null || !hintsOn || isMovingTiles() || !hinted.equals(model.snapshot())) {
+                board.clearHint();
+                return;
+            }
+            var latency = debug ? " (%.1f ms)".formatted((System.nanoTime() - hintRequestedAt) / 1e6) : "";
+            board.showHint(direction, latency);
+        });
+    }
+
+    /**
+     * Drops the hint of the previous board; the latency of the next hint is
+     * measured from {@code requestedAt}.
+     */
+    private void cancelHint(long requestedAt) {
+        hintRequestedAt = requestedAt;
+        hintEngine.cancel();
+        board.clearHint();
+    }
+
     public void undoMove() {
         synchronized (gameGrid) {
             if (movingTiles || undoSnapshot == null) {
@@ -491,15 +750,7 @@ public class GameManager extends Group {
      * Restore the game from a properties file, without confirmation.
      */
     private void doRestoreSession() {
-        var restoredValues = new HashMap<Location, Integer>();
-        if (board.restoreSession(restoredValues)) {
-            model.restoreSnapshot(restoredValues);
-            undoManager.resetForRestoredBoard(restoredValues);
-            syncTileMapFromModel();
-            redrawTilesInGameGrid();
-            board.setUndoCount(undoManager.remainingUndos());
-            setUndoSnapshot(null);
-        }
+        board.restoreSavedSession().ifPresent(this::restoreBoard);
     }
 
     /**
@@ -523,19 +774,68 @@ public class GameManager extends Group {
         if (UserSettings.LOCAL.getAutoSave() == AutoSaveMode.OFF) {
             return;
         }
-        var restoredValues = new HashMap<Location, Integer>();
-        if (board.silentRestoreSession(restoredValues)) {
-            model.restoreSnapshot(restoredValues);
-            undoManager.resetForRestoredBoard(restoredValues);
-            syncTileMapFromModel();
-            redrawTilesInGameGrid();
-            board.setUndoCount(undoManager.remainingUndos());
-            setUndoSnapshot(null);
+        board.silentRestoreSession().ifPresent(this::restoreBoard);
+    }
+
+    private void restoreBoard(BoardState restoredBoard) {
+        model.restoreSnapshot(restoredBoard);
+        undoManager.resetForRestoredBoard(restoredBoard);
+        syncTileMapFromModel();
+        redrawTilesInGameGrid();
+        board.setUndoCount(undoManager.remainingUndos());
+        setUndoSnapshot(null);
+        startRecord();
+        requestHint(System.nanoTime());
+    }
+
+    private void startRecord() {
+        recordStart = model.snapshot();
+        recordSteps.clear();
+        board.restartJournal();
+    }
+
+    /**
+     * Shows the post-mortem of the moves played since the game started or was
+     * restored, filled in as the analyzer threads finish each move.
+     */
+    private void analyzeGame() {
+        cancelAnalysis();
+        var record = new GameRecord(recordStart, recordSteps);
+        var content = board.showPostMortem(record.steps().size(), this::cancelAnalysis);
+        if (analyzer == null) {
+            analyzer = new ReplayAnalyzer(gridSize, AutoPlayer.evaluator(gridSize), ReplayAnalyzer.Options.defaults());
+        }
+        var replayAnalyzer = analyzer;
+        analysis = Thread.ofPlatform().daemon().name("fx2048-post-mortem").start(() -> {
+            try {
+                replayAnalyzer.analyze(record, content::offer);
+            } catch (CancellationException e) {
+                // the post-mortem was closed
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Cannot analyze the game", e);
+            }
+        });
+    }
+
+    private void cancelAnalysis() {
+        if (analysis != null) {
+            analysis.interrupt();
+            analysis = null;
         }
     }
 
     public void dispose() {
-        if (UserSettings.LOCAL.getAutoSave() == AutoSaveMode.ON_EXIT) {
+        turboTimer.stop();
+        turboOn = false;
+        cancelAnalysis();
+        if (analyzer != null) {
+            analyzer.close();
+        }
+        autoPlayer.dispose();
+        hintEngine.dispose();
+        var autoSave = UserSettings.LOCAL.getAutoSave();
+        if (autoSave == AutoSaveMode.ON_EXIT || autoSave == AutoSaveMode.JOURNAL) {
+            // a final checkpoint leaves no journal to replay on the next start
             doAutoSaveSession();
         }
         board.dispose();
@@ -548,6 +848,7 @@ public class GameManager extends Group {
                 board::pauseGame,
                 board::showTryAgainOverlay,
                 this::undoMove,
+                this::toggleHints,
                 board::bestScoresGame,
                 board::settingsGame,
                 board::aboutGame,
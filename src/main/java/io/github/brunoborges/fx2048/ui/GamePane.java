@@ -115,6 +115,9 @@ public class GamePane extends StackPane {
                 case R -> gameManager.restoreSession();
                 case P -> gameManager.pauseGame();
                 case U -> gameManager.undoMove();
+                case A -> gameManager.toggleAutoPlay();
+                case H -> gameManager.toggleHints();
+                case T -> gameManager.toggleTurbo();
                 case Q -> {
                     if (!cmdCtrlKeyPressed.get()) gameManager.quitGame();
                 }
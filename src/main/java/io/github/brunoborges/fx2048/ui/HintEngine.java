@@ -0,0 +1,125 @@
+package io.github.brunoborges.fx2048.ui;
+
+
+import javafx.application.Platform;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import io.github.brunoborges.fx2048.ai.MoveSearch;
+import io.github.brunoborges.fx2048.ai.SearchResult;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.Symmetry;
+
+/**
+ * Suggests moves for the hint toolbar action on a background thread.
+ * <p>
+ * Hints come from the same search and budget as {@link AutoPlayer}. They are
+ * remembered per board, up to {@value #CACHE_SIZE} boards, so undoing,
+ * restoring or coming back to a position shows its hint at once. Boards are
+ * cached by their {@link Symmetry} representative, which also covers rotated
+ * and mirrored positions. A new request or {@link #cancel()} cancels the
+ * search in progress and drops its result. All methods are called on the
+ * JavaFX thread.
+ */
+final class HintEngine {
+
+    static final int CACHE_SIZE = 512;
+
+    private final MoveSearch search;
+    private final Duration budget;
+    private final Map<BoardState, Direction> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BoardState, Direction> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private ExecutorService executor;
+    private Future<?> pending;
+    private long generation;
+
+    HintEngine(int gridSize) {
+        this(AutoPlayer.createSearch(gridSize), AutoPlayer.budget());
+    }
+
+    HintEngine(MoveSearch search, Duration budget) {
+        this.search = search;
+        this.budget = budget;
+    }
+
+    /**
+     * Passes the suggested move for {@code board}, or {@code null} when there
+     * is none, to {@code onHint} on the JavaFX thread. Cached hints are passed
+     * before this method returns.
+     */
+    void requestHint(BoardState board, Consumer<Direction> onHint) {
+        cancel();
+        var canonical = Symmetry.canonicalize(board);
+        var cached = cache.get(canonical.board());
+        if (cached != null) {
+            onHint.accept(canonical.toOriginal(cached));
+            return;
+        }
+
+        var request = generation;
+        pending = executor().submit(() -> {
+            SearchResult result;
+            try {
+                result = search.search(canonical.board(), budget);
+            } catch (RejectedExecutionException | CancellationException e) {
+                // cancelled, or the search threads were shut down by dispose()
+                return;
+            }
+            Platform.runLater(() -> {
+                var direction = result.direction();
+                if (direction != null) {
+                    cache.put(canonical.board(), direction);
+                }
+                if (request == generation) {
+                    pending = null;
+                    onHint.accept(direction == null ? null : canonical.toOriginal(direction));
+                }
+            });
+        });
+    }
+
+    /**
+     * Interrupts the search in progress, which then ends without a result, so
+     * nothing is cached for its board. A search that had already finished
+     * still caches its move, but its callback is not run.
+     */
+    void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    void dispose() {
+        cancel();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        search.close();
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(task -> {
+                var thread = new Thread(task, "fx2048-hints");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.brunoborges.fx2048.ui;
+
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.application.Platform;
+import javafx.geometry.HPos;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import io.github.brunoborges.fx2048.ai.ReplayAnalyzer;
+
+/**
+ * The post-mortem of a finished game: how many moves were the best ones and
+ * the {@value #WORST_MOVES} moves that lost the most value.
+ * <p>
+ * Analyses arrive from the analyzer threads through {@link #offer}; they are
+ * queued and shown in batches, with at most one batch waiting on the JavaFX
+ * thread at a time.
+ */
+final class PostMortemContent extends VBox {
+
+    static final int WORST_MOVES = 6;
+
+    private final int moveCount;
+    private final Queue<ReplayAnalyzer.MoveAnalysis> arrived = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final List<ReplayAnalyzer.MoveAnalysis> worstMoves = new ArrayList<>();
+    private final Label lblProgress = new Label();
+    private final Label lblAccuracy = new Label();
+    private final GridPane movesList = new GridPane();
+    private int analyzed;
+    private int bestPlayed;
+
+    PostMortemContent(int gridDimension, int moveCount) {
+        this.moveCount = moveCount;
+        setAlignment(Pos.CENTER);
+        setPadding(new Insets(10, 0, 0, 0));
+        setMinSize(gridDimension, gridDimension);
+        setPrefSize(gridDimension, gridDimension);
+        setMaxSize(gridDimension, gridDimension);
+        getStyleClass().add("game-best-scores-panel");
+
+        var title = new Label("Post-mortem");
+        title.getStyleClass().setAll("game-label", "game-best-scores-title");
+        lblProgress.getStyleClass().setAll("game-label", "game-post-mortem-summary");
+        lblAccuracy.getStyleClass().setAll("game-label", "game-post-mortem-summary");
+
+        movesList.setAlignment(Pos.CENTER);
+        movesList.getStyleClass().add("game-best-scores-list");
+        movesList.getColumnConstraints().setAll(column(HPos.RIGHT), column(HPos.CENTER), column(HPos.LEFT));
+
+        getChildren().setAll(title, lblProgress, lblAccuracy, movesList);
+        refresh();
+    }
+
+    /**
+     * Queues an analysis to be shown; may be called from any thread.
+     */
+    void offer(ReplayAnalyzer.MoveAnalysis analysis) {
+        arrived.add(analysis);
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        for (var analysis = arrived.poll(); analysis != null; analysis = arrived.poll()) {
+            analyzed++;
+            if (analysis.played() == analysis.best()) {
+                bestPlayed++;
+            } else {
+                worstMoves.add(analysis);
+            }
+        }
+        worstMoves.sort(Comparator.comparingDouble(ReplayAnalyzer.MoveAnalysis::loss).reversed());
+        if (worstMoves.size() > WORST_MOVES) {
+            worstMoves.subList(WORST_MOVES, worstMoves.size()).clear();
+        }
+        refresh();
+    }
+
+    private void refresh() {
+        lblProgress.setText(analyzed == moveCount
+                ? "%,d moves analyzed".formatted(moveCount)
+                : "Analyzing %,d of %,d moves...".formatted(analyzed, moveCount));
+        lblAccuracy.setText(analyzed == 0 ? "" : "Best move played %.0f%% of the time"
+                .formatted(100.0 * bestPlayed / analyzed));
+
+        movesList.getChildren().clear();
+        var rowIndex = 0;
+        for (var analysis : worstMoves) {
+            movesList.add(label("#%,d".formatted(analysis.move() + 1)), 0, rowIndex);
+            movesList.add(label(Board.arrow(analysis.played()) + " instead of " + Board.arrow(analysis.best())),
+                    1, rowIndex);
+            movesList.add(label("-%,.0f".formatted(analysis.loss())), 2, rowIndex++);
+        }
+    }
+
+    private static Label label(String text) {
+        var label = new Label(text);
+        label.getStyleClass().setAll("game-label", "game-post-mortem-move");
+        return label;
+    }
+
+    private static ColumnConstraints column(HPos alignment) {
+        var column = new ColumnConstraints();
+        column.setHalignment(alignment);
+        return column;
+    }
+}
@@ -11,6 +11,7 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
+import io.github.brunoborges.fx2048.persistence.UserSettings;
 
 public final class SettingsPanel extends VBox {
 
@@ -40,7 +41,17 @@ public final class SettingsPanel extends VBox {
         items.forEach(Item::refresh);
     }
 
+    /**
+     * Commits the changes of every item as one settings transaction, then
+     * applies them to the game.
+     *
+     * @return whether an item started a new game
+     */
     boolean apply() {
+        var transaction = UserSettings.LOCAL.edit();
+        items.forEach(item -> item.stage(transaction));
+        transaction.commit();
+
         var startsNewGame = false;
         for (var item : items) {
             if (item.apply()) {
@@ -91,6 +102,16 @@ public final class SettingsPanel extends VBox {
 
         void refresh();
 
+        /**
+         * Stages the selected value in {@code settings}.
+         */
+        void stage(UserSettings.Transaction settings);
+
+        /**
+         * Applies the committed value to the game.
+         *
+         * @return whether a new game was started
+         */
         boolean apply();
     }
 }
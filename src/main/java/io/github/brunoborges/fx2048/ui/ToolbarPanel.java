@@ -28,6 +28,7 @@ public final class ToolbarPanel extends HBox {
                 button("mPause", "Pause Game", actions.pauseGame()),
                 button("mReplay", "Try Again", actions.tryAgain()),
                 undoControl,
+                button("mHint", "Show Hints", actions.toggleHints()),
                 button("mBest", "Best Scores", actions.bestScores()),
                 button("mSettings", "Settings", actions.settings()),
                 button("mInfo", "About the Game", actions.about()),
@@ -50,6 +51,7 @@ public final class ToolbarPanel extends HBox {
             Runnable pauseGame,
             Runnable tryAgain,
             Runnable undoMove,
+            Runnable toggleHints,
             Runnable bestScores,
             Runnable settings,
             Runnable about,
@@ -0,0 +1,125 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+class EvilSpawnerTest {
+
+    private static final Duration NO_CAP = Duration.ofMinutes(1);
+
+    @Test
+    void spawnsTheTileThatEndsTheGame() {
+        // a 2 in the last hole merges with nothing, a 4 would merge with its neighbours
+        var board = engine(BoardState.of(4, (x, y) -> x == 3 && y == 3 ? 0 : (x + y) % 2 == 0 ? 2 : 4));
+        var spawner = new EvilSpawner(4, HeuristicEvaluator.INSTANCE, new EvilSpawner.Options(2, NO_CAP));
+
+        var cell = spawner.spawn(board);
+
+        assertEquals(board.cellIndex(3, 3), cell);
+        assertEquals(2, board.valueAt(3, 3));
+        assertTrue(board.isGameOver());
+    }
+
+    @Test
+    void prunedValuesMatchPlainMinimax() {
+        var model = new GameModel(new GridOperator(4), SpawnStream.seeded(18));
+        model.startGame();
+        for (var direction : new Direction[] { Direction.LEFT, Direction.DOWN, Direction.RIGHT, Direction.DOWN }) {
+            model.move(direction);
+            model.addRandomTile();
+        }
+        var board = engine(model.snapshot());
+        for (int depth = 1; depth <= 2; depth++) {
+            var spawner = new EvilSpawner(4, HeuristicEvaluator.INSTANCE, new EvilSpawner.Options(depth, NO_CAP));
+
+            var spawn = spawner.choose(board);
+
+            assertEquals(depth, spawn.depth());
+            assertEquals(minimax(board, depth), spawn.value(), 1e-9);
+            assertEquals(model.snapshot(), board.snapshot());
+        }
+    }
+
+    @Test
+    void choosesWithinTheTimeCapOn4x4To6x6() {
+        for (int gridSize = 4; gridSize <= 6; gridSize++) {
+            var model = new GameModel(new GridOperator(gridSize), SpawnStream.seeded(gridSize));
+            model.startGame();
+            var board = engine(model.snapshot());
+            var spawner = new EvilSpawner(gridSize);
+
+            var started = System.nanoTime();
+            var spawn = spawner.choose(board);
+            var elapsed = System.nanoTime() - started;
+
+            assertNotNull(spawn);
+            assertEquals(0, board.exponentAt(spawn.cell()));
+            assertTrue(spawn.depth() >= 1);
+            assertTrue(elapsed < Duration.ofSeconds(1).toNanos(), "took " + elapsed / 1_000_000 + " ms");
+        }
+    }
+
+    @Test
+    void returnsNoSpawnWhenTheGridIsFull() {
+        var board = engine(BoardState.of(4, (x, y) -> (x + y) % 2 == 0 ? 2 : 4));
+        var spawner = new EvilSpawner(4);
+
+        assertNull(spawner.choose(board));
+        assertEquals(-1, spawner.spawn(board));
+    }
+
+    @Test
+    void rejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new EvilSpawner.Options(0, NO_CAP));
+        assertThrows(IllegalArgumentException.class, () -> new EvilSpawner.Options(EvilSpawner.MAX_DEPTH + 1, NO_CAP));
+        assertThrows(IllegalArgumentException.class, () -> new EvilSpawner.Options(1, Duration.ofMillis(-1)));
+    }
+
+    private static BitBoardEngine engine(BoardState board) {
+        var engine = new BitBoardEngine(board.gridSize(), null);
+        engine.restore(board);
+        return engine;
+    }
+
+    /**
+     * The lowest value of any spawn on {@code board}, without pruning.
+     */
+    private static double minimax(BitBoardEngine board, int depth) {
+        var best = Double.POSITIVE_INFINITY;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.exponentAt(cell) != 0) {
+                continue;
+            }
+            for (int exponent = 1; exponent <= 2; exponent++) {
+                var spawned = board.copy();
+                spawned.setExponent(cell, exponent);
+                var value = Double.NEGATIVE_INFINITY;
+                for (var direction : Direction.values()) {
+                    var moved = spawned.copy();
+                    if (moved.move(direction, null) != BitBoardEngine.NO_MOVE) {
+                        value = Math.max(value, depth == 1
+                                ? HeuristicEvaluator.INSTANCE.evaluate(moved)
+                                : minimax(moved, depth - 1));
+                    }
+                }
+                best = Math.min(best, value);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+class ExpectimaxSearchTest {
+
+    @Test
+    void playsTheOnlyLegalMove() {
+        // full left column of distinct tiles, everything else empty: only RIGHT moves
+        var board = BoardState.of(4, (x, y) -> x == 0 ? 2 << y : 0);
+        var search = new ExpectimaxSearch(4, HeuristicEvaluator.INSTANCE);
+
+        var result = search.searchDepth(board, 2);
+
+        assertEquals(Direction.RIGHT, result.direction());
+        assertEquals(2, result.depth());
+    }
+
+    @Test
+    void reportsNoMoveWhenTheGameIsOver() {
+        var board = BoardState.of(4, (x, y) -> (x + y) % 2 == 0 ? 2 : 4);
+        var search = new ExpectimaxSearch(4, HeuristicEvaluator.INSTANCE);
+
+        assertNull(search.search(board, Duration.ofMillis(5)).direction());
+    }
+
+    @Test
+    void scoresEveryLegalMove() {
+        // full left column of distinct tiles, everything else empty: only RIGHT moves
+        var board = BoardState.of(4, (x, y) -> x == 0 ? 2 << y : 0);
+        var search = new ExpectimaxSearch(4, HeuristicEvaluator.INSTANCE);
+
+        var values = search.scoreMoves(board, 2);
+
+        for (var direction : Direction.values()) {
+            assertEquals(direction != Direction.RIGHT, Double.isNaN(values[direction.ordinal()]), direction.name());
+        }
+        assertEquals(search.searchDepth(board, 2).value(), values[Direction.RIGHT.ordinal()], 1e-9);
+    }
+
+    @Test
+    void deepensWithinTheBudgetOnEveryGridSize() {
+        for (int gridSize = GridOperator.MIN_GRID_SIZE; gridSize <= GridOperator.MAX_GRID_SIZE; gridSize += 4) {
+            var model = new GameModel(new GridOperator(gridSize), SpawnStream.seeded(gridSize));
+            model.startGame();
+            var search = new ExpectimaxSearch(gridSize, HeuristicEvaluator.INSTANCE);
+
+            var result = search.search(model.snapshot(), Duration.ofMillis(20));
+
+            assertNotNull(result.direction());
+            assertTrue(result.depth() >= 1);
+            assertTrue(result.elapsedNanos() < Duration.ofSeconds(2).toNanos());
+        }
+    }
+
+    @Test
+    void tableScoresMatchDirectScoresOn4x4() {
+        var model = new GameModel(new GridOperator(4), SpawnStream.seeded(11));
+        var search = new ExpectimaxSearch(4, HeuristicEvaluator.INSTANCE);
+        model.startGame();
+        for (int move = 0; move < 200 && !model.isGameOver(); move++) {
+            var board = model.snapshot();
+            var engine = new BitBoardEngine(4, null);
+            engine.restore(board);
+            var direct = 0.0;
+            for (int line = 0; line < 4; line++) {
+                var row = new int[4];
+                var column = new int[4];
+                for (int position = 0; position < 4; position++) {
+                    row[position] = board.exponentAt(position, line);
+                    column[position] = board.exponentAt(line, position);
+                }
+                direct += HeuristicEvaluator.scoreLine(row) + HeuristicEvaluator.scoreLine(column);
+            }
+
+            assertEquals(direct, HeuristicEvaluator.INSTANCE.evaluate(engine), 1.0);
+            model.play(search.searchDepth(board, 1).direction());
+            model.addRandomTile();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+class MonteCarloSearchTest {
+
+    @Test
+    void samplesEveryLegalMoveOncePerTaskWhenTheBudgetIsExhausted() {
+        var model = new GameModel(new GridOperator(4), SpawnStream.seeded(14));
+        model.startGame();
+        var options = new MonteCarloSearch.Options(3);
+        try (var search = new MonteCarloSearch(4, options, new SplittableRandom(14))) {
+            var result = search.search(model.snapshot(), Duration.ZERO);
+
+            assertNotNull(result.direction());
+            assertTrue(result.nodes() >= 2 * 3, "playouts: " + result.nodes());
+            assertEquals(0, result.nodes() % 3);
+            assertTrue(result.value() > 0);
+            assertTrue(result.nodesPerSecond() > 0);
+        }
+    }
+
+    @Test
+    void returnsTheOnlyLegalMove() {
+        // only the bottom row can merge, sideways
+        var board = BoardState.of(4, (x, y) -> y == 3 && x < 2 ? 2 : (x + y) % 2 == 0 ? 4 : 8);
+        try (var search = new MonteCarloSearch(4, new MonteCarloSearch.Options(2), new SplittableRandom(1))) {
+            var direction = search.search(board, Duration.ofMillis(5)).direction();
+
+            assertTrue(direction == Direction.LEFT || direction == Direction.RIGHT, String.valueOf(direction));
+        }
+    }
+
+    @Test
+    void returnsNoMoveWhenTheGameIsOver() {
+        try (var search = new MonteCarloSearch(5)) {
+            var result = search.search(BoardState.of(5, (x, y) -> (x + y) % 2 == 0 ? 2 : 4), Duration.ofMillis(5));
+
+            assertNull(result.direction());
+            assertEquals(0, result.nodes());
+        }
+    }
+
+    @Test
+    void rejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new MonteCarloSearch.Options(0));
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Symmetry;
+
+class NTupleNetworkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void updatesMoveTheValueOfTheBoard() {
+        for (var storage : NTupleNetwork.Storage.values()) {
+            try (var network = new NTupleNetwork(4, NTupleNetwork.Layout.SMALL, storage)) {
+                var board = engine(randomBoard(4, new Random(1)));
+                assertEquals(0, network.evaluate(board));
+
+                network.update(board, 0.5);
+
+                assertEquals(0.5 * network.featureCount(), network.evaluate(board), 1e-6);
+                assertEquals(32, network.featureCount());
+                assertEquals(4 * 65_536, network.weightCount());
+            }
+        }
+    }
+
+    @Test
+    void valuesEveryOrientationAlike() {
+        var random = new Random(2);
+        try (var network = new NTupleNetwork(5, NTupleNetwork.Layout.SMALL, NTupleNetwork.Storage.HEAP)) {
+            for (int i = 0; i < 20; i++) {
+                network.update(engine(randomBoard(5, random)), random.nextDouble());
+            }
+            var board = randomBoard(5, random);
+            for (var symmetry : Symmetry.values()) {
+                assertEquals(network.evaluate(engine(board)), network.evaluate(engine(symmetry.apply(board))), 1e-3,
+                        symmetry.name());
+            }
+        }
+    }
+
+    @Test
+    void checkpointsRoundTripAcrossStorages() throws IOException {
+        var random = new Random(3);
+        var file = directory.resolve("network.bin");
+        var boards = new BoardState[10];
+        try (var network = new NTupleNetwork(4, NTupleNetwork.Layout.SMALL, NTupleNetwork.Storage.HEAP)) {
+            for (int i = 0; i < boards.length; i++) {
+                boards[i] = randomBoard(4, random);
+                network.update(engine(boards[i]), random.nextGaussian());
+            }
+            network.save(file);
+
+            try (var loaded = NTupleNetwork.load(file, NTupleNetwork.Storage.OFF_HEAP)) {
+                assertEquals(network.tuples(), loaded.tuples());
+                for (var board : boards) {
+                    assertEquals(network.evaluate(engine(board)), loaded.evaluate(engine(board)));
+                }
+            }
+        }
+        assertTrue(Files.size(file) < 4 * 65_536 * Float.BYTES / 10, "checkpoint size: " + Files.size(file));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotCheckpoints() throws IOException {
+        var file = Files.writeString(directory.resolve("network.bin"), "not a network");
+
+        assertThrows(IOException.class, () -> NTupleNetwork.load(file, NTupleNetwork.Storage.HEAP));
+    }
+
+    private static BoardState randomBoard(int gridSize, Random random) {
+        return BoardState.of(gridSize, (_, _) -> random.nextInt(3) == 0 ? 0 : 1 << (1 + random.nextInt(16)));
+    }
+
+    private static BitBoardEngine engine(BoardState board) {
+        var engine = new BitBoardEngine(board.gridSize(), null);
+        engine.restore(board);
+        return engine;
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+class ParallelExpectimaxSearchTest {
+
+    @Test
+    void matchesTheSequentialSearchAtEqualDepth() {
+        var model = new GameModel(new GridOperator(4), SpawnStream.seeded(5));
+        var sequential = new ExpectimaxSearch(4, HeuristicEvaluator.INSTANCE);
+        var options = new ParallelExpectimaxSearch.Options[] {
+                new ParallelExpectimaxSearch.Options(1, 0, 1),
+                new ParallelExpectimaxSearch.Options(3, 1, 2),
+                new ParallelExpectimaxSearch.Options(4, 2, 1) };
+        model.startGame();
+
+        for (int move = 0; move < 30; move++) {
+            var board = model.snapshot();
+            var expected = sequential.searchDepth(board, 2);
+            for (var option : options) {
+                try (var parallel = new ParallelExpectimaxSearch(4, HeuristicEvaluator.INSTANCE, option)) {
+                    var actual = parallel.searchDepth(board, 2);
+
+                    assertEquals(expected.direction(), actual.direction());
+                    assertEquals(expected.value(), actual.value());
+                    assertEquals(expected.nodes(), actual.nodes());
+                }
+            }
+            model.play(expected.direction());
+            model.addRandomTile();
+        }
+    }
+
+    @Test
+    void deepensWithinTheBudget() {
+        var model = new GameModel(new GridOperator(6), SpawnStream.seeded(6));
+        model.startGame();
+        try (var parallel = new ParallelExpectimaxSearch(6, HeuristicEvaluator.INSTANCE,
+                ParallelExpectimaxSearch.Options.withParallelism(2))) {
+            var result = parallel.search(model.snapshot(), Duration.ofMillis(20));
+
+            assertNotNull(result.direction());
+            assertNull(parallel.search(BoardState.of(6, (x, y) -> (x + y) % 2 == 0 ? 2 : 4),
+                    Duration.ofMillis(5)).direction());
+        }
+    }
+
+    @Test
+    void rejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelExpectimaxSearch.Options(0, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelExpectimaxSearch.Options(2, -1, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelExpectimaxSearch.Options(2, 1, 0));
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GameRecord;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+class ReplayAnalyzerTest {
+
+    @Test
+    void scoresEveryMoveAgainstTheBestMove() {
+        var record = playRecord(5, 60);
+        var streamed = new ConcurrentLinkedQueue<ReplayAnalyzer.MoveAnalysis>();
+        try (var analyzer = new ReplayAnalyzer(5, HeuristicEvaluator.INSTANCE, new ReplayAnalyzer.Options(2, 3))) {
+            var analyses = analyzer.analyze(record, streamed::add);
+
+            assertEquals(record.steps().size(), analyses.size());
+            assertEquals(analyses.size(), streamed.size());
+            var positions = record.positions();
+            var search = new ExpectimaxSearch(5, HeuristicEvaluator.INSTANCE);
+            for (int move = 0; move < analyses.size(); move++) {
+                var analysis = analyses.get(move);
+                assertEquals(move, analysis.move());
+                assertEquals(positions.get(move), analysis.board());
+                assertEquals(record.steps().get(move).direction(), analysis.played());
+                assertTrue(analysis.loss() >= 0);
+                assertEquals(analysis.played() == analysis.best(), analysis.loss() == 0);
+                assertEquals(search.searchDepth(analysis.board(), 2).value(), analysis.bestValue(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void rejectsRecordsOfAnotherGridSize() {
+        try (var analyzer = new ReplayAnalyzer(4, HeuristicEvaluator.INSTANCE, ReplayAnalyzer.Options.defaults())) {
+            assertThrows(IllegalArgumentException.class, () -> analyzer.analyze(playRecord(5, 1), _ -> {
+            }));
+        }
+    }
+
+    @Test
+    void rejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplayAnalyzer.Options(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ReplayAnalyzer.Options(2, 0));
+    }
+
+    /**
+     * Plays up to {@code moves} moves cycling through the directions.
+     */
+    private static GameRecord playRecord(int gridSize, int moves) {
+        var model = new GameModel(new GridOperator(gridSize), SpawnStream.seeded(gridSize));
+        model.startGame();
+        BoardState start = model.snapshot();
+        List<GameRecord.Step> steps = new ArrayList<>();
+        var directions = Direction.values();
+        for (int i = 0; steps.size() < moves && !model.isGameOver(); i++) {
+            var direction = directions[i % directions.length];
+            if (model.move(direction).tilesMoved()) {
+                var tile = model.addRandomTile().orElseThrow();
+                steps.add(new GameRecord.Step(direction, tile.location(), tile.value()));
+            }
+        }
+        return new GameRecord(start, steps);
+    }
+}
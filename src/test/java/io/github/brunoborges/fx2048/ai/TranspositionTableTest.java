@@ -0,0 +1,107 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+class TranspositionTableTest {
+
+    @Test
+    void returnsValuesStoredAtTheRequestedDepthOrDeeper() {
+        var table = new TranspositionTable(1024);
+
+        table.store(42, 3, 1_234.5);
+
+        assertEquals(1_234.5, table.probe(42, 2));
+        assertEquals(1_234.5, table.probe(42, 3));
+        assertTrue(Double.isNaN(table.probe(42, 4)));
+        assertTrue(Double.isNaN(table.probe(43, 1)));
+        assertEquals(0.5, table.stats().hitRate());
+    }
+
+    @Test
+    void keepsDeeperResultsOfTheCurrentGeneration() {
+        // a single bucket: every hash competes for the same two slots
+        var table = new TranspositionTable(32);
+        table.store(1, 5, 10);
+        table.store(2, 4, 20);
+
+        table.store(3, 2, 30);
+        assertTrue(Double.isNaN(table.probe(3, 1)));
+
+        table.store(3, 4, 30);
+        assertEquals(30, table.probe(3, 4));
+        assertEquals(10, table.probe(1, 5));
+
+        table.nextGeneration();
+        table.store(4, 1, 40);
+        assertEquals(40, table.probe(4, 1));
+        assertEquals(2, table.stats().occupied());
+    }
+
+    @Test
+    void neverExceedsItsMemoryCap() {
+        var table = new TranspositionTable(1_000_000);
+
+        assertEquals(1 << 19, table.memoryBytes());
+        assertEquals(1 << 15, table.stats().capacity());
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(16));
+    }
+
+    @Test
+    void concurrentWritersNeverProduceForeignValues() throws Exception {
+        var table = new TranspositionTable(4096);
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            var tasks = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 4; thread++) {
+                var offset = thread;
+                tasks.add(executor.submit(() -> {
+                    for (long hash = offset; hash < 200_000; hash += 4) {
+                        table.store(hash * 0x9e3779b97f4a7c15L, 1, hash);
+                        var value = table.probe(hash * 0x9e3779b97f4a7c15L, 1);
+                        assertTrue(Double.isNaN(value) || value == (float) hash);
+                    }
+                }));
+            }
+            for (var task : tasks) {
+                task.get();
+            }
+        }
+        assertTrue(table.stats().occupancy() > 0.9);
+    }
+
+    @Test
+    void cachedSearchAgreesWithThePlainSearchOnMostMoves() {
+        var model = new GameModel(new GridOperator(4), SpawnStream.seeded(3));
+        var plain = new ExpectimaxSearch(4, HeuristicEvaluator.INSTANCE);
+        var table = new TranspositionTable(TranspositionTable.DEFAULT_MAX_BYTES);
+        var cached = new ExpectimaxSearch(4, HeuristicEvaluator.INSTANCE, table);
+        var agreements = 0;
+        model.startGame();
+
+        for (int move = 0; move < 40; move++) {
+            var board = model.snapshot();
+            var expected = plain.searchDepth(board, 3);
+            var actual = cached.searchDepth(board, 3);
+            if (expected.direction() == actual.direction()) {
+                agreements++;
+            }
+            assertTrue(actual.nodes() <= expected.nodes());
+            model.play(expected.direction());
+            model.addRandomTile();
+        }
+        assertTrue(agreements >= 36, "agreements: " + agreements);
+        assertTrue(table.stats().hitRate() > 0.3);
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.brunoborges.fx2048.ai;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.GridOperator;
+
+class ZobristKeysTest {
+
+    @Test
+    void keysAreSharedAndEmptyCellsHashToZero() {
+        for (int gridSize = GridOperator.MIN_GRID_SIZE; gridSize <= GridOperator.MAX_GRID_SIZE; gridSize++) {
+            var keys = ZobristKeys.forGridSize(gridSize);
+
+            assertSame(keys, ZobristKeys.forGridSize(gridSize));
+            assertEquals(0, keys.hash(BoardState.empty(gridSize)));
+        }
+    }
+
+    @Test
+    void hashIsTheXorOfTileKeys() {
+        var keys = ZobristKeys.forGridSize(5);
+        var engine = new BitBoardEngine(5, null);
+        engine.setExponent(3, 1);
+        engine.setExponent(24, 30);
+
+        assertEquals(keys.key(3, 1) ^ keys.key(24, 30), keys.hash(engine));
+        assertEquals(keys.hash(engine), keys.hash(engine.snapshot()));
+
+        engine.setExponent(3, 2);
+        assertEquals(keys.key(3, 2) ^ keys.key(24, 30), keys.hash(engine));
+        assertNotEquals(keys.hash(engine), ZobristKeys.forGridSize(4).hash(BoardState.of(4, (x, y) -> 2)));
+    }
+}
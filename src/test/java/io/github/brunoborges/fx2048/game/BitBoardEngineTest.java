@@ -0,0 +1,128 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BitBoardEngineTest {
+
+    @Test
+    void storesExponentsForEveryCellOfTheLargestGrid() {
+        var engine = new BitBoardEngine(GridOperator.MAX_GRID_SIZE, new Random(0));
+
+        for (int x = 0; x < engine.gridSize(); x++) {
+            for (int y = 0; y < engine.gridSize(); y++) {
+                engine.setValue(x, y, 1 << (1 + (x + y) % 30));
+            }
+        }
+
+        for (int x = 0; x < engine.gridSize(); x++) {
+            for (int y = 0; y < engine.gridSize(); y++) {
+                assertEquals(1 << (1 + (x + y) % 30), engine.valueAt(x, y));
+            }
+        }
+        assertTrue(engine.isFull());
+    }
+
+    @Test
+    void moveDownReportsMovementsInTraversalOrder() {
+        var engine = new BitBoardEngine(4, new Random(0));
+        engine.setValue(0, 0, 2);
+        engine.setValue(0, 1, 2);
+        engine.setValue(1, 0, 4);
+        var events = new ArrayList<String>();
+
+        var points = engine.move(Direction.DOWN, new BitBoardEngine.MoveListener() {
+            @Override
+            public void moved(int fromX, int fromY, int toX, int toY) {
+                events.add("move %d,%d->%d,%d".formatted(fromX, fromY, toX, toY));
+            }
+
+            @Override
+            public void merged(int fromX, int fromY, int toX, int toY, int mergedValue) {
+                events.add("merge %d,%d->%d,%d=%d".formatted(fromX, fromY, toX, toY, mergedValue));
+            }
+        });
+
+        assertEquals(4, points);
+        assertEquals(List.of("move 0,1->0,3", "merge 0,0->0,3=4", "move 1,0->1,3"), events);
+        assertEquals(4, engine.valueAt(0, 3));
+        assertEquals(4, engine.valueAt(1, 3));
+    }
+
+    @Test
+    void moveWithoutChangesReportsNoMove() {
+        var engine = new BitBoardEngine(5, new Random(0));
+        engine.setValue(0, 0, 2);
+        engine.setValue(0, 1, 4);
+
+        assertEquals(BitBoardEngine.NO_MOVE, engine.move(Direction.UP, null));
+        assertEquals(BitBoardEngine.NO_MOVE, engine.move(Direction.LEFT, null));
+        assertFalse(engine.lastMoveWon());
+    }
+
+    @Test
+    void fullGridDetectionIgnoresUnusedCellsOfTheLastWord() {
+        var engine = new BitBoardEngine(5, new Random(0));
+        for (int cell = 0; cell < engine.cellCount(); cell++) {
+            engine.setExponent(cell, 1 + cell % 2);
+        }
+
+        assertTrue(engine.isFull());
+        assertEquals(-1, engine.addRandomTile());
+    }
+
+    @Test
+    void tracksEmptyCellsThroughWritesMovesAndSpawns() {
+        var engine = new BitBoardEngine(GridOperator.MAX_GRID_SIZE, new Random(3));
+        assertEquals(256, engine.emptyCellCount());
+
+        engine.setValue(0, 1, 2);
+        engine.setValue(15, 15, 2);
+        assertEquals(254, engine.emptyCellCount());
+        assertEquals(0, engine.emptyCellAt(0));
+        assertEquals(2, engine.emptyCellAt(1));
+        assertEquals(254, engine.emptyCellAt(253));
+
+        engine.move(Direction.UP, null);
+        assertEquals(254, engine.emptyCellCount());
+        assertEquals(1, engine.emptyCellAt(0));
+
+        var added = engine.addRandomTile();
+        assertTrue(engine.exponentAt(added) > 0);
+        assertEquals(253, engine.emptyCellCount());
+    }
+
+    @Test
+    void tracksAdjacentEqualTilesIncrementally() {
+        var engine = new BitBoardEngine(4, new Random(0));
+        engine.setValue(0, 0, 2);
+        engine.setValue(1, 0, 2);
+        assertTrue(engine.hasMergeMovements());
+
+        engine.move(Direction.LEFT, null);
+        assertFalse(engine.hasMergeMovements());
+
+        engine.setValue(0, 1, 4);
+        assertTrue(engine.hasMergeMovements());
+        engine.setValue(0, 1, 8);
+        assertFalse(engine.hasMergeMovements());
+        assertFalse(engine.isGameOver());
+    }
+
+    @Test
+    void rejectsValuesThatAreNotPowersOfTwo() {
+        var engine = new BitBoardEngine(4, new Random(0));
+
+        assertThrows(IllegalArgumentException.class, () -> engine.setValue(0, 0, 6));
+        assertThrows(IllegalArgumentException.class, () -> engine.setValue(0, 0, 1));
+    }
+}
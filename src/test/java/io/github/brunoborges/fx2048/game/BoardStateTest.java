@@ -0,0 +1,57 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BoardStateTest {
+
+    @Test
+    void boardsWithTheSameTilesAreEqual() {
+        var first = BoardState.of(6, (x, y) -> x == y ? 2 << x : 0);
+        var second = BoardState.of(6, (x, y) -> x == y ? 2 << x : 0);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, BoardState.empty(6));
+        assertNotEquals(BoardState.empty(4), BoardState.empty(5));
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterMoves() {
+        var model = new GameModel(new GridOperator(4), new Random(1));
+        model.restoreSnapshot(BoardState.of(4, (x, y) -> x == 3 && y == 0 ? 2 : 0));
+        var before = model.snapshot();
+
+        model.move(Direction.LEFT);
+
+        assertEquals(2, before.valueAt(3, 0));
+        assertEquals(2, model.snapshot().valueAt(0, 0));
+        model.restoreSnapshot(before);
+        assertEquals(before, model.snapshot());
+    }
+
+    @Test
+    void reportsMaxValueAndVisitsEveryCell() {
+        var board = BoardState.of(5, (x, y) -> x == 4 && y == 4 ? 4096 : 2);
+        var visited = new int[1];
+
+        board.forEachCell((x, y, value) -> visited[0] += value == board.valueAt(x, y) ? 1 : 0);
+
+        assertEquals(4096, board.maxValue());
+        assertEquals(25, visited[0]);
+        assertEquals(0, BoardState.empty(5).maxValue());
+    }
+
+    @Test
+    void rejectsBoardsOfAnotherGridSize() {
+        var model = new GameModel(new GridOperator(4));
+
+        assertThrows(IllegalArgumentException.class, () -> model.restoreSnapshot(BoardState.empty(5)));
+    }
+}
@@ -5,8 +5,6 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 
 import org.junit.jupiter.api.Test;
@@ -101,6 +99,31 @@ class GameModelTest {
         assertTrue(model.hasMergeMovements());
     }
 
+    @Test
+    void gameIsOverOnlyWhenFullAndWithoutAdjacentPairs() {
+        var model = modelWith(
+                row(2, 4, 2, 4),
+                row(4, 2, 4, 2),
+                row(2, 4, 2, 4),
+                row(4, 2, 4, 0));
+        assertFalse(model.isGameOver());
+
+        // the only free cell is between two 4s: a 2 ends the game, a 4 can merge
+        var spawned = model.addRandomTile().orElseThrow();
+
+        assertEquals(spawned.value() == 2, model.isGameOver());
+        assertTrue(modelWith(
+                row(2, 4, 2, 4),
+                row(4, 2, 4, 2),
+                row(2, 4, 2, 4),
+                row(4, 2, 4, 2)).isGameOver());
+        assertFalse(modelWith(
+                row(2, 4, 2, 4),
+                row(4, 2, 4, 2),
+                row(2, 4, 2, 4),
+                row(4, 2, 4, 4)).isGameOver());
+    }
+
     @Test
     void addRandomTileFillsAnAvailableLocation() {
         var model = modelWith(
@@ -117,20 +140,33 @@ class GameModelTest {
         assertTrue(model.isFull());
     }
 
+    @Test
+    void addRandomTileUsesTheSpawnStrategy() {
+        var model = modelWith(
+                row(2, 0, 0, 0),
+                row(0, 0, 0, 0),
+                row(0, 0, 0, 0),
+                row(0, 0, 0, 0));
+        model.setSpawnStrategy(board -> {
+            board.setExponent(board.cellIndex(3, 2), 2);
+            return board.cellIndex(3, 2);
+        });
+
+        var addedTile = model.addRandomTile();
+
+        assertTrue(addedTile.isPresent());
+        assertEquals(new GameModel.TileState(new Location(3, 2), 4), addedTile.get());
+        assertEquals(4, model.snapshot().valueAt(3, 2));
+    }
+
     private GameModel modelWith(int[]... rows) {
         var model = new GameModel(new GridOperator(4), new Random(0));
         model.restoreSnapshot(snapshot(rows));
         return model;
     }
 
-    private Map<Location, Integer> snapshot(int[]... rows) {
-        var snapshot = new HashMap<Location, Integer>();
-        for (int y = 0; y < rows.length; y++) {
-            for (int x = 0; x < rows[y].length; x++) {
-                snapshot.put(new Location(x, y), rows[y][x]);
-            }
-        }
-        return snapshot;
+    private BoardState snapshot(int[]... rows) {
+        return BoardState.of(rows.length, (x, y) -> rows[y][x]);
     }
 
     private int[] row(int value0, int value1, int value2, int value3) {
@@ -139,9 +175,9 @@ class GameModelTest {
 
     private void assertRow(GameModel model, int y, int value0, int value1, int value2, int value3) {
         var snapshot = model.snapshot();
-        assertEquals(value0, snapshot.get(new Location(0, y)));
-        assertEquals(value1, snapshot.get(new Location(1, y)));
-        assertEquals(value2, snapshot.get(new Location(2, y)));
-        assertEquals(value3, snapshot.get(new Location(3, y)));
+        assertEquals(value0, snapshot.valueAt(new Location(0, y)));
+        assertEquals(value1, snapshot.valueAt(new Location(1, y)));
+        assertEquals(value2, snapshot.valueAt(new Location(2, y)));
+        assertEquals(value3, snapshot.valueAt(new Location(3, y)));
     }
 }
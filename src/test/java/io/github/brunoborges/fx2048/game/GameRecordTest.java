@@ -0,0 +1,52 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class GameRecordTest {
+
+    @Test
+    void replaysThePositionBeforeEveryMove() {
+        var model = new GameModel(new GridOperator(4), SpawnStream.seeded(19));
+        model.startGame();
+        var start = model.snapshot();
+        var boards = new ArrayList<BoardState>();
+        var steps = new ArrayList<GameRecord.Step>();
+        for (var direction : new Direction[] { Direction.LEFT, Direction.UP, Direction.RIGHT, Direction.DOWN }) {
+            var before = model.snapshot();
+            if (!model.move(direction).tilesMoved()) {
+                continue;
+            }
+            var tile = model.addRandomTile().orElseThrow();
+            boards.add(before);
+            steps.add(new GameRecord.Step(direction, tile.location(), tile.value()));
+        }
+
+        var record = new GameRecord(start, steps);
+
+        assertEquals(boards, record.positions());
+    }
+
+    @Test
+    void rejectsMovesThatMoveNothing() {
+        // a single tile in the top left corner cannot move left
+        var start = BoardState.of(4, (x, y) -> x == 0 && y == 0 ? 2 : 0);
+        var record = new GameRecord(start, List.of(new GameRecord.Step(Direction.LEFT, new Location(1, 1), 2)));
+
+        assertThrows(IllegalArgumentException.class, record::positions);
+    }
+
+    @Test
+    void rejectsSpawnsOnOccupiedCells() {
+        var start = BoardState.of(4, (x, y) -> x == 0 && y == 0 ? 2 : 0);
+        var record = new GameRecord(start, List.of(new GameRecord.Step(Direction.RIGHT, new Location(3, 0), 2)));
+
+        assertThrows(IllegalArgumentException.class, record::positions);
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class GridOperatorTest {
+
+    @Test
+    void traversesColumnsFirstInAscendingOrderByDefault() {
+        assertEquals(List.of("0,0", "0,1", "0,2", "0,3", "1,0"), visited(new GridOperator(4), Direction.UP).subList(0, 5));
+        assertEquals(visited(new GridOperator(4), Direction.UP), visited(new GridOperator(4), null));
+    }
+
+    @Test
+    void reversesTheAxisTheMoveIsHeadingTo() {
+        var gridOperator = new GridOperator(4);
+
+        assertEquals(List.of("3,0", "3,1", "3,2", "3,3", "2,0"), visited(gridOperator, Direction.RIGHT).subList(0, 5));
+        assertEquals(List.of("0,3", "0,2", "0,1", "0,0", "1,3"), visited(gridOperator, Direction.DOWN).subList(0, 5));
+        assertEquals(visited(gridOperator, Direction.UP), visited(gridOperator, Direction.LEFT));
+    }
+
+    @Test
+    void traversalSumsTheReturnedValuesOfEveryCell() {
+        var gridOperator = new GridOperator(GridOperator.MAX_GRID_SIZE);
+
+        assertEquals(256, gridOperator.traverseGrid(Direction.DOWN, (_, _) -> 1));
+        assertEquals(16, gridOperator.traverseGrid((x, _) -> x == 15 ? 1 : 0));
+    }
+
+    @Test
+    void rejectsGridSizesOutsideTheSupportedRange() {
+        assertThrows(IllegalArgumentException.class, () -> new GridOperator(GridOperator.MIN_GRID_SIZE - 1));
+        assertThrows(IllegalArgumentException.class, () -> new GridOperator(GridOperator.MAX_GRID_SIZE + 1));
+    }
+
+    private static List<String> visited(GridOperator gridOperator, Direction direction) {
+        var visited = new ArrayList<String>();
+        if (direction == null) {
+            gridOperator.traverseGrid((x, y) -> visited.add(x + "," + y) ? 0 : 0);
+        } else {
+            gridOperator.traverseGrid(direction, (x, y) -> visited.add(x + "," + y) ? 0 : 0);
+        }
+        return visited;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LineTableTest {
+
+    @Test
+    void tableIsBuiltForTheSmallestGridByDefault() {
+        var table = LineTable.forGridSize(4);
+
+        assertTrue(table.isPresent());
+        assertEquals(65_536L * Integer.BYTES, table.get().memoryBytes());
+        assertTrue(LineTable.forGridSize(GridOperator.MAX_GRID_SIZE).isEmpty());
+    }
+
+    @Test
+    void entryPacksResultAndMergedCells() {
+        var table = LineTable.forGridSize(4).orElseThrow();
+
+        // 2 2 2 2 -> 4 4 0 0, both results produced by a merge
+        var entry = table.entry(key(1, 1, 1, 1));
+
+        assertEquals(key(2, 2, 0, 0), LineTable.resultKey(entry, 4));
+        assertEquals(0b0011, LineTable.mergeMask(entry, 4));
+    }
+
+    @Test
+    void linesThatWouldOverflowAreNotCovered() {
+        var table = LineTable.forGridSize(4).orElseThrow();
+
+        assertEquals(LineTable.UNSUPPORTED, table.entry(key(15, 15, 0, 0)));
+        assertEquals(key(15, 14, 0, 0), LineTable.resultKey(table.entry(key(0, 15, 14, 0)), 4));
+    }
+
+    @Test
+    void parsesConfiguredGridSizesAndIgnoresInvalidOnes() {
+        var enabled = LineTable.parseGridSizes("4, 6,16,x");
+
+        assertArrayEquals(new boolean[] { false, false, false, false, true, false, true }, enabled);
+    }
+
+    @Test
+    void tableMovesMatchTileByTileMoves() {
+        var table = LineTable.forGridSize(4).orElseThrow();
+        var withTable = new BitBoardEngine(4, new Random(42), table);
+        var withoutTable = new BitBoardEngine(4, new Random(42), null);
+        var directions = new Random(7);
+        withTable.startGame();
+        withoutTable.startGame();
+
+        for (int move = 0; move < 2_000; move++) {
+            var direction = Direction.values()[directions.nextInt(4)];
+            var tableEvents = new ArrayList<String>();
+            var scalarEvents = new ArrayList<String>();
+
+            assertEquals(withoutTable.move(direction, recorder(scalarEvents)),
+                    withTable.move(direction, recorder(tableEvents)));
+            assertEquals(scalarEvents, tableEvents);
+            assertEquals(withoutTable.lastMoveWon(), withTable.lastMoveWon());
+            assertEquals(withoutTable.addRandomTile(), withTable.addRandomTile());
+            if (withTable.isFull() && !withTable.hasMergeMovements()) {
+                withTable.startGame();
+                withoutTable.startGame();
+            }
+        }
+    }
+
+    private static int key(int... exponents) {
+        var key = 0;
+        for (int position = 0; position < exponents.length; position++) {
+            key |= exponents[position] << (position * LineTable.BITS_PER_CELL);
+        }
+        return key;
+    }
+
+    private static BitBoardEngine.MoveListener recorder(List<String> events) {
+        return new BitBoardEngine.MoveListener() {
+            @Override
+            public void moved(int fromX, int fromY, int toX, int toY) {
+                events.add("move %d,%d->%d,%d".formatted(fromX, fromY, toX, toY));
+            }
+
+            @Override
+            public void merged(int fromX, int fromY, int toX, int toY, int mergedValue) {
+                events.add("merge %d,%d->%d,%d=%d".formatted(fromX, fromY, toX, toY, mergedValue));
+            }
+        };
+    }
+}
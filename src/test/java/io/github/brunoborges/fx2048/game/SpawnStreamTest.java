@@ -0,0 +1,71 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SpawnStreamTest {
+
+    @Test
+    void seededStreamProducesAFixedSequence() {
+        var stream = SpawnStream.seeded(2048);
+
+        assertEquals(4863380155621572158L, stream.nextLong());
+        assertEquals(2677112557861589791L, stream.nextLong());
+        assertEquals(27, stream.nextInt(36));
+        assertEquals(0.9149171758981441, stream.nextDouble());
+        assertEquals(4, stream.position());
+    }
+
+    @Test
+    void streamCanBeResumedFromItsPosition() {
+        var stream = SpawnStream.seeded(7);
+        for (int i = 0; i < 10; i++) {
+            stream.nextInt(16);
+        }
+
+        var resumed = SpawnStream.at(stream.seed(), stream.position());
+
+        assertEquals(stream.nextLong(), resumed.nextLong());
+    }
+
+    @Test
+    void boundedValuesStayInRange() {
+        var stream = SpawnStream.seeded(1);
+        for (int i = 0; i < 10_000; i++) {
+            var value = stream.nextInt(36);
+            assertTrue(value >= 0 && value < 36);
+            var fraction = stream.nextFloat();
+            assertTrue(fraction >= 0f && fraction < 1f);
+        }
+    }
+
+    @Test
+    void splitStreamsAreIndependent() {
+        var stream = SpawnStream.seeded(42);
+
+        var first = stream.split();
+        var second = stream.split();
+
+        assertNotEquals(first.seed(), second.seed());
+        assertNotEquals(first.nextLong(), second.nextLong());
+    }
+
+    @Test
+    void gamesWithTheSameSeedSpawnTheSameTiles() {
+        var first = new GameModel(new GridOperator(6), SpawnStream.seeded(99));
+        var second = new GameModel(new GridOperator(6), SpawnStream.seeded(99));
+        first.startGame();
+        second.startGame();
+
+        for (var direction : Direction.values()) {
+            first.move(direction);
+            second.move(direction);
+            assertEquals(first.addRandomTile(), second.addRandomTile());
+        }
+        assertEquals(first.snapshot(), second.snapshot());
+    }
+}
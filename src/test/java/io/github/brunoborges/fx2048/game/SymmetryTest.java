@@ -0,0 +1,125 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SymmetryTest {
+
+    @Test
+    void transformedBoardsMoveLikeTheOriginal() {
+        for (var gridSize : new int[] { 4, 5, 7, 16 }) {
+            assertMovesCommute(gridSize);
+        }
+    }
+
+    private static void assertMovesCommute(int gridSize) {
+        var random = new Random(gridSize);
+        for (int i = 0; i < 20; i++) {
+            var board = randomBoard(gridSize, random, 11);
+            for (var symmetry : Symmetry.values()) {
+                for (var direction : Direction.values()) {
+                    var original = new BitBoardEngine(gridSize, null);
+                    original.restore(board);
+                    var points = original.move(direction, null);
+
+                    var transformed = new BitBoardEngine(gridSize, null);
+                    transformed.restore(symmetry.apply(board));
+                    var transformedPoints = transformed.move(symmetry.apply(direction), null);
+
+                    assertEquals(points, transformedPoints, symmetry + " " + direction);
+                    assertEquals(symmetry.apply(original.snapshot()), transformed.snapshot(), symmetry + " " + direction);
+                }
+            }
+        }
+    }
+
+    @Test
+    void everyVariantHasTheSameRepresentative() {
+        for (var gridSize : new int[] { 4, 5, 6, 16 }) {
+            assertSameRepresentative(gridSize);
+        }
+    }
+
+    private static void assertSameRepresentative(int gridSize) {
+        var random = new Random(31L * gridSize);
+        for (int i = 0; i < 50; i++) {
+            // exponents above 15 send 4x4 boards down the generic path
+            var board = randomBoard(gridSize, random, i % 2 == 0 ? 15 : 17);
+            var canonical = Symmetry.canonicalize(board);
+
+            assertEquals(canonical.symmetry().apply(board), canonical.board());
+            for (var symmetry : Symmetry.values()) {
+                assertEquals(canonical.board(), Symmetry.canonicalize(symmetry.apply(board)).board(), symmetry.name());
+            }
+        }
+    }
+
+    @Test
+    void fastPathMatchesTheGenericTransforms() {
+        var random = new Random(4);
+        for (int i = 0; i < 200; i++) {
+            var board = randomBoard(4, random, 15);
+            var canonical = Symmetry.canonicalize(board);
+
+            var smallest = board;
+            for (var symmetry : Symmetry.values()) {
+                var candidate = symmetry.apply(board);
+                if (candidate.compareWords(smallest) < 0) {
+                    smallest = candidate;
+                }
+            }
+            assertEquals(smallest, canonical.board());
+
+            var engine = new BitBoardEngine(4, null);
+            engine.restore(canonical.board());
+            assertEquals(Symmetry.toNibbles(engine), Symmetry.canonicalNibbles(toNibbles(board)));
+        }
+    }
+
+    @Test
+    void movesOnTheRepresentativeMapBackToTheOriginal() {
+        var board = BoardState.of(4, (x, y) -> x == 3 && y == 0 ? 8 : x == 2 && y == 0 ? 2 : 0);
+        var canonical = Symmetry.canonicalize(board);
+        assertNotEquals(board, canonical.board());
+
+        for (var direction : Direction.values()) {
+            var onCanonical = new BitBoardEngine(4, null);
+            onCanonical.restore(canonical.board());
+            onCanonical.move(direction, null);
+
+            var onOriginal = new BitBoardEngine(4, null);
+            onOriginal.restore(board);
+            onOriginal.move(canonical.toOriginal(direction), null);
+
+            assertEquals(onCanonical.snapshot(), canonical.symmetry().apply(onOriginal.snapshot()), direction.name());
+        }
+    }
+
+    @Test
+    void inverseUndoesEveryTransform() {
+        var board = randomBoard(6, new Random(6), 12);
+        for (var symmetry : Symmetry.values()) {
+            assertEquals(board, symmetry.inverse().apply(symmetry.apply(board)), symmetry.name());
+            for (var direction : Direction.values()) {
+                assertEquals(direction, symmetry.inverse().apply(symmetry.apply(direction)));
+            }
+        }
+    }
+
+    private static BoardState randomBoard(int gridSize, Random random, int maxExponent) {
+        return BoardState.of(gridSize, (_, _) -> random.nextInt(3) == 0 ? 0 : 1 << (1 + random.nextInt(maxExponent)));
+    }
+
+    private static long toNibbles(BoardState board) {
+        var nibbles = 0L;
+        for (int cell = 0; cell < 16; cell++) {
+            nibbles |= (long) board.exponentAt(cell) << (cell << 2);
+        }
+        return nibbles;
+    }
+}
@@ -6,7 +6,6 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
-import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
@@ -60,9 +59,7 @@ class UndoManagerTest {
     void restoreResetsAndReappliesMilestoneAwardsFromBoardState() {
         var manager = new UndoManager();
         manager.consumeUndo();
-        manager.resetForRestoredBoard(Map.of(
-                new Location(0, 0), 2048,
-                new Location(1, 0), 0));
+        manager.resetForRestoredBoard(BoardState.of(4, (x, y) -> x == 0 && y == 0 ? 2048 : 0));
 
         assertEquals(UndoManager.MAX_UNDOS, manager.remainingUndos());
     }
@@ -0,0 +1,79 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs only with the {@code vector} Maven profile, which compiles
+ * {@code VectorLines} and starts the tests with
+ * {@code --add-modules jdk.incubator.vector}.
+ */
+class VectorLinesTest {
+
+    @BeforeEach
+    void requireVectorLines() {
+        assumeTrue(BitBoardEngine.vectorLinesAvailable(),
+                "VectorLines is not built or jdk.incubator.vector is not in the boot layer");
+    }
+
+    @Test
+    void vectorMovesMatchTileByTileMoves() {
+        for (var gridSize : new int[] { 4, 7, 8, 12, 16 }) {
+            var withVectors = new BitBoardEngine(gridSize, new Random(gridSize), null, true);
+            var scalar = new BitBoardEngine(gridSize, new Random(gridSize), null, false);
+            var directions = new Random(7);
+            withVectors.startGame();
+            scalar.startGame();
+
+            for (int move = 0; move < 3_000; move++) {
+                var direction = Direction.values()[directions.nextInt(4)];
+
+                assertEquals(scalar.move(direction, null), withVectors.move(direction, null),
+                        gridSize + "x" + gridSize + " move " + move);
+                assertEquals(scalar.snapshot(), withVectors.snapshot());
+                assertEquals(scalar.emptyCellCount(), withVectors.emptyCellCount());
+                assertEquals(scalar.hasMergeMovements(), withVectors.hasMergeMovements());
+                assertEquals(scalar.addRandomTile(), withVectors.addRandomTile());
+                if (scalar.isGameOver()) {
+                    withVectors.startGame();
+                    scalar.startGame();
+                }
+            }
+        }
+    }
+
+    @Test
+    void mergesRunsPairwiseTowardsTheMove() {
+        var engine = new BitBoardEngine(12, null, null, true);
+        for (int x = 0; x < 5; x++) {
+            engine.setValue(x, 0, 2);
+        }
+        engine.setValue(11, 0, 2);
+
+        assertEquals(12, engine.move(Direction.RIGHT, null));
+        assertEquals(4, engine.valueAt(11, 0));
+        assertEquals(4, engine.valueAt(10, 0));
+        assertEquals(4, engine.valueAt(9, 0));
+        assertEquals(3, engine.cellCount() - engine.emptyCellCount());
+        assertEquals(BitBoardEngine.NO_MOVE, engine.move(Direction.UP, null));
+    }
+
+    @Test
+    void reportsTheWinningMerge() {
+        var engine = new BitBoardEngine(16, null, null, true);
+        engine.setValue(3, 15, GameModel.FINAL_VALUE_TO_WIN / 2);
+        engine.setValue(3, 9, GameModel.FINAL_VALUE_TO_WIN / 2);
+
+        assertEquals(GameModel.FINAL_VALUE_TO_WIN, engine.move(Direction.UP, null));
+        assertTrue(engine.lastMoveWon());
+        assertEquals(GameModel.FINAL_VALUE_TO_WIN, engine.valueAt(3, 0));
+        assertEquals(1, engine.cellCount() - engine.emptyCellCount());
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.brunoborges.fx2048.persistence;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GameRecord;
+import io.github.brunoborges.fx2048.game.GridOperator;
+
+class MoveJournalTest {
+
+    private static final int GRID_SIZE = 5;
+
+    private final SessionManager manager = new SessionManager(new GridOperator(GRID_SIZE));
+    private Path sessionPath;
+    private Path journalPath;
+    private byte[] originalSession;
+    private byte[] originalJournal;
+
+    @BeforeEach
+    void backupUserFiles() throws IOException {
+        sessionPath = UserSettings.LOCAL.resolve(manager.sessionFilename);
+        journalPath = UserSettings.LOCAL.resolve("game2048_" + GRID_SIZE + ".journal");
+        originalSession = backup(sessionPath);
+        originalJournal = backup(journalPath);
+        Files.deleteIfExists(sessionPath);
+        Files.deleteIfExists(journalPath);
+    }
+
+    @AfterEach
+    void restoreUserFiles() throws IOException {
+        restore(sessionPath, originalSession);
+        restore(journalPath, originalJournal);
+    }
+
+    @Test
+    void recoversTheCheckpointAndReplaysJournaledMoves() throws IOException {
+        var game = new Game();
+        try (var journal = new MoveJournal(manager, 100)) {
+            for (var session : game.play(30)) {
+                assertTrue(journal.append(game.steps.get(session.moveCount() - 1), session));
+            }
+        }
+        // the first move was saved as a checkpoint, the others journaled
+        assertEquals(MoveJournal.HEADER_BYTES + 29L * MoveJournal.RECORD_BYTES, Files.size(journalPath));
+
+        try (var journal = new MoveJournal(manager, 100)) {
+            assertEquals(game.last, journal.recover().orElseThrow());
+        }
+    }
+
+    @Test
+    void dropsATornRecordAndContinuesAfterTheLastValidMove() throws IOException {
+        var game = new Game();
+        var sessions = game.play(12);
+        try (var journal = new MoveJournal(manager, 100)) {
+            for (var session : sessions) {
+                journal.append(game.steps.get(session.moveCount() - 1), session);
+            }
+        }
+        try (var channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - MoveJournal.RECORD_BYTES / 2);
+        }
+
+        try (var journal = new MoveJournal(manager, 100)) {
+            assertEquals(sessions.get(10), journal.recover().orElseThrow());
+            // the torn last move is played again
+            assertTrue(journal.append(game.steps.get(11), sessions.get(11)));
+        }
+        try (var journal = new MoveJournal(manager, 100)) {
+            assertEquals(sessions.get(11), journal.recover().orElseThrow());
+        }
+    }
+
+    @Test
+    void ignoresAJournalThatDoesNotFollowTheSavedSession() throws IOException {
+        var game = new Game();
+        var sessions = game.play(8);
+        try (var journal = new MoveJournal(manager, 100)) {
+            for (var session : sessions) {
+                journal.append(game.steps.get(session.moveCount() - 1), session);
+            }
+        }
+        // as if a crash struck between saving a checkpoint and deleting the journal
+        var stale = Files.readAllBytes(journalPath);
+        var last = sessions.getLast();
+        assertTrue(manager.saveSession(last.board(), last.score(), last.time(), last.moveCount()));
+        Files.write(journalPath, stale);
+
+        try (var journal = new MoveJournal(manager, 100)) {
+            assertEquals(last, journal.recover().orElseThrow());
+        }
+        assertFalse(Files.exists(journalPath));
+    }
+
+    @Test
+    void compactsIntoACheckpointEveryInterval() throws IOException {
+        var game = new Game();
+        try (var journal = new MoveJournal(manager, 10)) {
+            for (var session : game.play(25)) {
+                journal.append(game.steps.get(session.moveCount() - 1), session);
+            }
+        }
+        // checkpoints at moves 1, 12 and 23, each followed by up to 10 journaled moves
+        assertEquals(23, manager.restoreSession().orElseThrow().moveCount());
+        assertEquals(MoveJournal.HEADER_BYTES + 2L * MoveJournal.RECORD_BYTES, Files.size(journalPath));
+        try (var journal = new MoveJournal(manager, 10)) {
+            assertEquals(game.last, journal.recover().orElseThrow());
+        }
+    }
+
+    @Test
+    void savesACheckpointWhenAMoveDoesNotFollowTheJournal() throws IOException {
+        var game = new Game();
+        var sessions = game.play(6);
+        try (var journal = new MoveJournal(manager, 100)) {
+            for (var session : sessions.subList(0, 4)) {
+                journal.append(game.steps.get(session.moveCount() - 1), session);
+            }
+            // move 5 was never journaled
+            journal.append(game.steps.get(5), sessions.get(5));
+        }
+        assertEquals(sessions.get(5), manager.restoreSession().orElseThrow());
+        assertFalse(Files.exists(journalPath));
+    }
+
+    /**
+     * A game played with a seeded random, keeping the step and session of every move.
+     */
+    private static final class Game {
+
+        final GameModel model = new GameModel(new GridOperator(GRID_SIZE), new Random(2048));
+        final List<GameRecord.Step> steps = new ArrayList<>();
+        SessionManager.SessionData last;
+        int score;
+
+        Game() {
+            model.startGame();
+        }
+
+        List<SessionManager.SessionData> play(int moves) {
+            var sessions = new ArrayList<SessionManager.SessionData>();
+            var directions = Direction.values();
+            for (int turn = 0; sessions.size() < moves; turn++) {
+                var direction = directions[turn % directions.length];
+                var points = model.play(direction);
+                if (points == BitBoardEngine.NO_MOVE) {
+                    continue;
+                }
+                score += points;
+                var spawn = model.addRandomTile().orElseThrow();
+                steps.add(new GameRecord.Step(direction, spawn.location(), spawn.value()));
+                last = new SessionManager.SessionData(model.snapshot(), score, steps.size() * 1_000_000L,
+                        steps.size());
+                sessions.add(last);
+            }
+            return sessions;
+        }
+    }
+
+    private static byte[] backup(Path path) throws IOException {
+        return Files.exists(path) ? Files.readAllBytes(path) : null;
+    }
+
+    private static void restore(Path path, byte[] content) throws IOException {
+        if (content == null) {
+            Files.deleteIfExists(path);
+        } else {
+            Files.write(path, content);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.brunoborges.fx2048.persistence;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.GridOperator;
+
+class SessionManagerTest {
+
+    @Test
+    void encodesSessionsAsFixedSizeBuffers() {
+        var manager = new SessionManager(new GridOperator(5));
+        var session = new SessionManager.SessionData(sampleBoard(5), 30_000, 123_456_789L, 812);
+
+        var encoded = manager.encode(session);
+
+        assertEquals(SessionManager.sessionBytes(5), encoded.remaining());
+        assertEquals(51, encoded.remaining());
+        assertEquals(SessionManager.MAGIC, encoded.getInt(0));
+        assertEquals(session, manager.decode());
+    }
+
+    @Test
+    void rejectsCorruptedSessionsAndBoardsOfOtherGrids() {
+        var manager = new SessionManager(new GridOperator(4));
+        var session = new SessionManager.SessionData(sampleBoard(4), 2_048, 1_000L, 100);
+
+        var encoded = manager.encode(session);
+        encoded.put(10, (byte) (encoded.get(10) ^ 1));
+
+        assertThrows(IllegalArgumentException.class, manager::decode);
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.encode(new SessionManager.SessionData(sampleBoard(6), 0, 0L, 0)));
+    }
+
+    @Test
+    void restoresLegacyPropertiesAndSavesThemAsBinary() throws IOException {
+        var gridSize = GridOperator.MAX_GRID_SIZE;
+        var manager = new SessionManager(new GridOperator(gridSize));
+        var sessionPath = UserSettings.LOCAL.resolve(manager.sessionFilename);
+        var legacyPath = UserSettings.LOCAL.resolve(manager.propertiesFilename);
+        var originalSession = backup(sessionPath);
+        var originalLegacy = backup(legacyPath);
+
+        try {
+            Files.deleteIfExists(sessionPath);
+            var board = sampleBoard(gridSize);
+            var legacy = new Properties();
+            board.forEachCell((x, y, value) -> legacy.setProperty("Location_" + x + "_" + y, Integer.toString(value)));
+            legacy.setProperty("score", "4096");
+            legacy.setProperty("time", "5000000000");
+            legacy.setProperty("moves", "700");
+            UserSettings.LOCAL.store(legacy, manager.propertiesFilename);
+
+            var expected = new SessionManager.SessionData(board, 4_096, 5_000_000_000L, 700);
+            assertEquals(expected, manager.restoreSession().orElseThrow());
+
+            assertTrue(manager.saveSession(board, 4_096, 5_000_000_000L, 700));
+            assertEquals(SessionManager.sessionBytes(gridSize), Files.size(sessionPath));
+            Files.delete(legacyPath);
+            assertEquals(expected, new SessionManager(new GridOperator(gridSize)).restoreSession().orElseThrow());
+        } finally {
+            restore(sessionPath, originalSession);
+            restore(legacyPath, originalLegacy);
+        }
+    }
+
+    private static BoardState sampleBoard(int gridSize) {
+        return BoardState.of(gridSize, (x, y) -> (x + 2 * y) % 5 == 0 ? 0 : 1 << ((x * 7 + y) % 17 + 1));
+    }
+
+    private static byte[] backup(Path path) throws IOException {
+        return Files.exists(path) ? Files.readAllBytes(path) : null;
+    }
+
+    private static void restore(Path path, byte[] content) throws IOException {
+        if (content == null) {
+            Files.deleteIfExists(path);
+        } else {
+            Files.write(path, content);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.brunoborges.fx2048.persistence;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.GridOperator;
+
+class SessionWriterTest {
+
+    @Test
+    void coalescesSessionsSubmittedDuringASlowSave() throws InterruptedException {
+        var manager = new RecordingSessionManager();
+        try (var writer = new SessionWriter(manager)) {
+            writer.submit(session(1));
+            assertTrue(manager.started.await(10, TimeUnit.SECONDS));
+
+            // the disk is busy with the first save; these never block the caller
+            for (int moves = 2; moves <= 50; moves++) {
+                writer.submit(session(moves));
+            }
+            manager.release.countDown();
+
+            assertTrue(writer.flush());
+            assertEquals(List.of(1, 50), manager.savedMoves);
+        }
+    }
+
+    @Test
+    void closeSavesTheLastSubmittedSession() {
+        var manager = new RecordingSessionManager();
+        manager.release.countDown();
+        var writer = new SessionWriter(manager);
+        writer.submit(session(7));
+        writer.close();
+
+        assertEquals(List.of(7), manager.savedMoves);
+        writer.submit(session(8));
+        assertEquals(List.of(7), manager.savedMoves);
+    }
+
+    @Test
+    void flushReportsAFailedSave() {
+        var manager = new RecordingSessionManager();
+        manager.release.countDown();
+        manager.succeed = false;
+        try (var writer = new SessionWriter(manager)) {
+            writer.submit(session(3));
+
+            assertFalse(writer.flush());
+        }
+    }
+
+    private static SessionManager.SessionData session(int moves) {
+        return new SessionManager.SessionData(BoardState.empty(4), moves * 4, moves * 1_000L, moves);
+    }
+
+    private static final class RecordingSessionManager extends SessionManager {
+
+        final List<Integer> savedMoves = new CopyOnWriteArrayList<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean succeed = true;
+
+        RecordingSessionManager() {
+            super(new GridOperator(4));
+        }
+
+        @Override
+        public synchronized boolean saveSession(BoardState board, Integer score, Long time, Integer moveCount) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            savedMoves.add(moveCount);
+            return succeed;
+        }
+    }
+}
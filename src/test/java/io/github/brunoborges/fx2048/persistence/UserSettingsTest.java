@@ -2,6 +2,8 @@ package io.github.brunoborges.fx2048.persistence;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
@@ -11,13 +13,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 import org.junit.jupiter.api.Test;
+import io.github.brunoborges.fx2048.game.GridOperator;
 import io.github.brunoborges.fx2048.settings.AnimationSpeed;
+import io.github.brunoborges.fx2048.settings.AutoSaveMode;
+import io.github.brunoborges.fx2048.settings.GameMode;
 
 class UserSettingsTest {
 
@@ -75,6 +81,99 @@ class UserSettingsTest {
         }
     }
 
+    @Test
+    void settingsAreReadFromMemoryUntilTheFileChanges() throws IOException, InterruptedException {
+        var settings = UserSettings.LOCAL;
+        var originalProperties = new Properties();
+        var hadOriginalSettings = settings.restore(originalProperties, SETTINGS_FILENAME);
+
+        try {
+            settings.setAnimationSpeed(AnimationSpeed.FAST);
+            assertSame(settings.snapshot(), settings.snapshot());
+
+            // another program, not UserSettings, writes the file
+            var changed = new Properties();
+            changed.putAll(originalProperties);
+            changed.setProperty(ANIMATION_SPEED_KEY, AnimationSpeed.SLOW.name());
+            try (var writer = Files.newBufferedWriter(settingsPath())) {
+                changed.store(writer, null);
+            }
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (settings.getAnimationSpeed() != AnimationSpeed.SLOW && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(AnimationSpeed.SLOW, settings.getAnimationSpeed());
+        } finally {
+            restoreOriginalSettings(settings, originalProperties, hadOriginalSettings);
+        }
+    }
+
+    @Test
+    void updateWritesEveryChangeAndKeepsUnknownProperties() throws IOException {
+        var settings = UserSettings.LOCAL;
+        var originalProperties = new Properties();
+        var hadOriginalSettings = settings.restore(originalProperties, SETTINGS_FILENAME);
+        var withUnknownProperty = new Properties();
+        withUnknownProperty.putAll(originalProperties);
+        withUnknownProperty.setProperty("addedByANewerVersion", "kept");
+
+        try {
+            settings.store(withUnknownProperty, SETTINGS_FILENAME);
+            assertTrue(settings.update(current -> current.withAnimationSpeed(AnimationSpeed.SLOW)
+                    .withAutoSave(AutoSaveMode.JOURNAL)));
+
+            var written = new Properties();
+            try (var reader = Files.newBufferedReader(settingsPath())) {
+                written.load(reader);
+            }
+            assertEquals("SLOW", written.getProperty(ANIMATION_SPEED_KEY));
+            assertEquals("JOURNAL", written.getProperty("autoSave"));
+            assertEquals("kept", written.getProperty("addedByANewerVersion"));
+            assertEquals(AutoSaveMode.JOURNAL, settings.getAutoSave());
+            assertThrows(IllegalArgumentException.class, () -> settings.setGridSize(GridOperator.MAX_GRID_SIZE + 1));
+        } finally {
+            restoreOriginalSettings(settings, originalProperties, hadOriginalSettings);
+        }
+    }
+
+    @Test
+    void transactionCommitsStagedChangesTogether() throws IOException {
+        var settings = UserSettings.LOCAL;
+        var originalProperties = new Properties();
+        var hadOriginalSettings = settings.restore(originalProperties, SETTINGS_FILENAME);
+
+        try {
+            settings.setAnimationSpeed(AnimationSpeed.NORMAL);
+            var transaction = settings.edit()
+                    .setAnimationSpeed(AnimationSpeed.FAST)
+                    .setAutoSave(AutoSaveMode.ON_EXIT)
+                    .setGameMode(GameMode.EVIL);
+            assertThrows(IllegalArgumentException.class, () -> transaction.setGridSize(GridOperator.MIN_GRID_SIZE - 1));
+            assertEquals(AnimationSpeed.NORMAL, settings.getAnimationSpeed());
+
+            var written = transaction.commit();
+            var committed = settings.snapshot();
+            assertEquals(AnimationSpeed.FAST, committed.animationSpeed());
+            assertEquals(AutoSaveMode.ON_EXIT, committed.autoSave());
+            assertEquals(GameMode.EVIL, committed.gameMode());
+
+            assertTrue(written.join());
+            var stored = new Properties();
+            try (var reader = Files.newBufferedReader(settingsPath())) {
+                stored.load(reader);
+            }
+            assertEquals("FAST", stored.getProperty(ANIMATION_SPEED_KEY));
+            assertEquals("ON_EXIT", stored.getProperty("autoSave"));
+            assertEquals("EVIL", stored.getProperty("gameMode"));
+        } finally {
+            restoreOriginalSettings(settings, originalProperties, hadOriginalSettings);
+        }
+    }
+
+    private static Path settingsPath() {
+        return UserSettings.LOCAL.resolve(SETTINGS_FILENAME);
+    }
+
     private void restoreOriginalSettings(UserSettings settings, Properties originalProperties, boolean hadOriginalSettings) {
         if (hadOriginalSettings) {
             settings.store(originalProperties, SETTINGS_FILENAME);
@@ -0,0 +1,21 @@
+package io.github.brunoborges.fx2048.settings;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class GameModeTest {
+
+    @Test
+    void fromStringIsCaseInsensitive() {
+        assertEquals(GameMode.CLASSIC, GameMode.fromString("classic"));
+        assertEquals(GameMode.EVIL, GameMode.fromString("EVIL"));
+    }
+
+    @Test
+    void fromStringReturnsClassicForUnknownValues() {
+        assertEquals(GameMode.CLASSIC, GameMode.fromString("unknown"));
+        assertEquals(GameMode.CLASSIC, GameMode.fromString(null));
+    }
+}
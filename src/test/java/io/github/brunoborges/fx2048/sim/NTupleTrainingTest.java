@@ -0,0 +1,62 @@
+package io.github.brunoborges.fx2048.sim;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.brunoborges.fx2048.ai.NTupleNetwork;
+import io.github.brunoborges.fx2048.game.BitBoardEngine;
+
+class NTupleTrainingTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parsesOptionsOverDefaults() {
+        var options = NTupleTraining.Options.parse("--games", "50", "--layout", "large", "--storage", "off-heap");
+
+        assertEquals(50, options.games());
+        assertEquals(NTupleNetwork.Layout.LARGE, options.layout());
+        assertEquals(NTupleNetwork.Storage.OFF_HEAP, options.storage());
+        assertEquals(NTupleTraining.Options.defaults().learningRate(), options.learningRate());
+        assertThrows(IllegalArgumentException.class, () -> NTupleTraining.Options.parse("--alpha", "0"));
+        assertThrows(IllegalArgumentException.class, () -> NTupleTraining.Options.parse("--layout", "huge"));
+    }
+
+    @Test
+    void trainsInRoundsAndCheckpointsEveryRound() throws IOException {
+        var output = directory.resolve("ntuple.bin");
+        var options = new NTupleTraining.Options(30, 2, 0.1, 7, 4, NTupleNetwork.Layout.SMALL,
+                NTupleNetwork.Storage.HEAP, null, output, 12);
+        var progress = new ByteArrayOutputStream();
+        try (var network = NTupleTraining.open(options)) {
+            var report = NTupleTraining.train(network, options, new PrintStream(progress, true));
+
+            assertEquals(30, report.games());
+            assertTrue(report.moves() > 30 * 10);
+            assertTrue(report.meanScore() > 0);
+            assertTrue(report.gamesPerSecond() > 0);
+            assertEquals(3, progress.toString().lines().count());
+            assertNotEquals(0, network.evaluate(new BitBoardEngine(4, null)));
+        }
+
+        var resumed = new NTupleTraining.Options(1, 1, 0.1, 7, 4, NTupleNetwork.Layout.SMALL,
+                NTupleNetwork.Storage.HEAP, output, null, 1);
+        try (var network = NTupleTraining.open(resumed)) {
+            assertTrue(Files.size(output) > 0);
+            assertNotEquals(0, network.evaluate(new BitBoardEngine(4, null)));
+        }
+    }
+}
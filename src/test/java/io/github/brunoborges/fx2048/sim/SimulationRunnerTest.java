@@ -0,0 +1,87 @@
+package io.github.brunoborges.fx2048.sim;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.Direction;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+
+class SimulationRunnerTest {
+
+    @Test
+    void parsesOptionsOverDefaults() {
+        var options = SimulationRunner.Options.parse("--games", "12", "--policy", "Greedy", "--grid", "5");
+
+        assertEquals(12, options.games());
+        assertEquals(Policy.GREEDY, options.policy());
+        assertEquals(5, options.gridSize());
+        assertEquals(SimulationRunner.Options.defaults().seed(), options.seed());
+        assertThrows(IllegalArgumentException.class, () -> SimulationRunner.Options.parse("--grid", "3"));
+        assertThrows(IllegalArgumentException.class, () -> SimulationRunner.Options.parse("--speed", "1"));
+        assertThrows(IllegalArgumentException.class, () -> SimulationRunner.Options.parse("--games"));
+    }
+
+    @Test
+    void randomPolicyPicksEveryLegalDirectionEquallyOften() {
+        // a lone tile in a corner can only move along two edges
+        var model = new GameModel(new GridOperator(4));
+        model.restoreSnapshot(BoardState.of(4, (x, y) -> x == 0 && y == 3 ? 2 : 0));
+        var random = new SplittableRandom(11);
+        var counts = new EnumMap<Direction, Integer>(Direction.class);
+        for (int i = 0; i < 4_000; i++) {
+            counts.merge(Policy.RANDOM.choose(model, random), 1, Integer::sum);
+        }
+
+        assertEquals(2, counts.size());
+        for (var count : counts.values()) {
+            assertTrue(count > 1_800 && count < 2_200, "chosen " + count + " times out of 4000");
+        }
+    }
+
+    @Test
+    void everyGameIsPlayedToTheEnd() {
+        for (var policy : Policy.values()) {
+            var report = SimulationRunner.run(new SimulationRunner.Options(40, policy, 7, 4, 3));
+
+            assertEquals(40, report.games());
+            assertEquals(40, Arrays.stream(report.maxTileCounts()).sum());
+            assertTrue(report.moves() > 40 * 10);
+            assertTrue(report.scorePercentile(0) > 0);
+        }
+    }
+
+    @Test
+    void runsAreReproducibleForTheSameSeedAndThreads() {
+        var options = new SimulationRunner.Options(30, Policy.RANDOM, 42, 4, 2);
+
+        var first = SimulationRunner.run(options);
+        var second = SimulationRunner.run(options);
+
+        assertArrayEquals(first.scores(), second.scores());
+        assertEquals(first.moves(), second.moves());
+    }
+
+    @Test
+    void reportsTheThreadsThatPlayed() {
+        var report = SimulationRunner.run(new SimulationRunner.Options(2, Policy.CORNER, 5, 4, 8));
+        var out = new ByteArrayOutputStream();
+
+        report.print(new PrintStream(out, true, StandardCharsets.UTF_8));
+
+        var printed = out.toString(StandardCharsets.UTF_8);
+        assertTrue(printed.contains(" on 2 threads "), printed);
+    }
+}
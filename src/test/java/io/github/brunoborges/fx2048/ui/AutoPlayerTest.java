@@ -0,0 +1,76 @@
+package io.github.brunoborges.fx2048.ui;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.game.BoardState;
+import io.github.brunoborges.fx2048.game.GameModel;
+import io.github.brunoborges.fx2048.game.GridOperator;
+import io.github.brunoborges.fx2048.game.SpawnStrategy;
+import io.github.brunoborges.fx2048.game.SpawnStream;
+
+class AutoPlayerTest {
+
+    @Test
+    void turboPublishesTheLatestBoardWithRunningTotals() throws InterruptedException {
+        var model = new GameModel(new GridOperator(4), SpawnStream.seeded(17));
+        model.startGame();
+        var autoPlayer = new AutoPlayer(4);
+        try {
+            autoPlayer.startTurbo(model.snapshot(), SpawnStrategy.RANDOM);
+            assertTrue(autoPlayer.isTurbo());
+
+            var frame = awaitFrame(autoPlayer, 10);
+            assertTrue(frame.points() > 0);
+            assertEquals(4, frame.board().gridSize());
+            for (int move = 0; move < frame.moves(); move++) {
+                assertNotNull(autoPlayer.pollTurboStep());
+            }
+
+            autoPlayer.stop();
+            assertFalse(autoPlayer.isTurbo());
+        } finally {
+            autoPlayer.dispose();
+        }
+    }
+
+    @Test
+    void turboFinishesAtOnceWhenTheGameIsOver() throws InterruptedException {
+        var board = BoardState.of(4, (x, y) -> (x + y) % 2 == 0 ? 2 : 4);
+        var autoPlayer = new AutoPlayer(4);
+        try {
+            autoPlayer.startTurbo(board, SpawnStrategy.RANDOM);
+
+            var frame = awaitFrame(autoPlayer, 0);
+            assertTrue(frame.finished());
+            assertEquals(0, frame.moves());
+            assertEquals(board, frame.board());
+        } finally {
+            autoPlayer.dispose();
+        }
+    }
+
+    private static AutoPlayer.TurboFrame awaitFrame(AutoPlayer autoPlayer, int moves) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        AutoPlayer.TurboFrame latest = null;
+        while (System.nanoTime() < deadline) {
+            var frame = autoPlayer.pollTurbo();
+            if (frame != null) {
+                latest = frame;
+                if (frame.moves() >= moves || frame.finished()) {
+                    return frame;
+                }
+            }
+            Thread.sleep(5);
+        }
+        assertNotNull(latest, "no turbo frame published");
+        return latest;
+    }
+}
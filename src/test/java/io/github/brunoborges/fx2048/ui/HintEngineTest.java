@@ -0,0 +1,88 @@
+package io.github.brunoborges.fx2048.ui;
+
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.brunoborges.fx2048.ai.ExpectimaxSearch;
+import io.github.brunoborges.fx2048.ai.HeuristicEvaluator;
+import io.github.brunoborges.fx2048.ai.MoveSearch;
+import io.github.brunoborges.fx2048.ai.ParallelExpectimaxSearch;
+import io.github.brunoborges.fx2048.ai.SearchResult;
+import io.github.brunoborges.fx2048.game.BoardState;
+
+class HintEngineTest {
+
+    @Test
+    void cancelStopsTheSearchLongBeforeItsBudget() throws InterruptedException {
+        var board = BoardState.of(4, (x, y) -> x == y ? 2 << x : 0);
+        var searches = List.of(
+                new ExpectimaxSearch(4, HeuristicEvaluator.INSTANCE),
+                new ParallelExpectimaxSearch(4, HeuristicEvaluator.INSTANCE,
+                        ParallelExpectimaxSearch.Options.withParallelism(2)));
+        for (var search : searches) {
+            var watched = new WatchedSearch(search);
+            var hints = new HintEngine(watched, Duration.ofMinutes(1));
+            try {
+                hints.requestHint(board, _ -> {
+                });
+                assertTrue(watched.started.await(10, TimeUnit.SECONDS));
+                Thread.sleep(100);
+
+                hints.cancel();
+
+                assertTrue(watched.finished.await(5, TimeUnit.SECONDS), search + " ran on after cancel()");
+                assertFalse(watched.completed, "the search finished before it was cancelled");
+            } finally {
+                hints.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reports when the search on the hint thread starts and when it returns or is cancelled.
+     */
+    private static final class WatchedSearch implements MoveSearch {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        private final MoveSearch search;
+        volatile boolean completed;
+
+        WatchedSearch(MoveSearch search) {
+            this.search = search;
+        }
+
+        @Override
+        public SearchResult search(BoardState board, Duration budget) {
+            started.countDown();
+            try {
+                var result = search.search(board, budget);
+                completed = true;
+                return result;
+            } catch (CancellationException e) {
+                throw e;
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public int gridSize() {
+            return search.gridSize();
+        }
+
+        @Override
+        public void close() {
+            search.close();
+        }
+    }
+}
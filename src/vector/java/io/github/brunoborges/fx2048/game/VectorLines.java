@@ -0,0 +1,145 @@
+package io.github.brunoborges.fx2048.game;
+
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Slides and merges the lines of a large grid with the incubating Vector API.
+ * <p>
+ * Each line is loaded into one 16 lane {@link ByteVector} of exponents,
+ * ordered towards the move direction. The tiles are packed to the front with
+ * {@link ByteVector#compress}, equal neighbours are found with one lane-wise
+ * comparison, and the merged pairs are incremented, their partners cleared and
+ * the line packed again. Only the choice of which equal neighbours merge, left
+ * to right within runs such as {@code 2 2 2}, is worked out on the bits of the
+ * comparison mask. Cells are written back, through
+ * {@link BitBoardEngine#setExponent}, only where the line changed.
+ * <p>
+ * Movements are not reported, so the engine only uses this class for moves
+ * without a {@link BitBoardEngine.MoveListener}. Only the {@code vector} Maven
+ * profile compiles this class, and the engine loads it reflectively when the
+ * {@code jdk.incubator.vector} module is present; see
+ * {@link BitBoardEngine#VECTOR_LINES_PROPERTY}. Instances keep scratch buffers
+ * and belong to a single engine.
+ */
+final class VectorLines implements BitBoardEngine.LineMover {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+    // the engine packs cell k of a word in its k-th lowest byte
+    private static final ValueLayout.OfLong CELL_BYTES = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final int gridSize;
+    // the grid, one byte per cell, with padding so every line can be loaded as a whole vector
+    private final byte[] cells;
+    private final byte[] transposed;
+    private final byte[] merged = new byte[SPECIES.length()];
+    private final byte[] result = new byte[SPECIES.length()];
+    private final ByteVector lineLanes;
+    private final VectorShuffle<Byte> reverse;
+    private int points;
+    private boolean lastMoveWon;
+
+    VectorLines(int gridSize) {
+        if (gridSize > SPECIES.length()) {
+            throw new IllegalArgumentException("Lines longer than %d cells cannot be vectorized"
+                    .formatted(SPECIES.length()));
+        }
+        this.gridSize = gridSize;
+        var words = (gridSize * gridSize + BitBoardEngine.CELLS_PER_WORD - 1) / BitBoardEngine.CELLS_PER_WORD;
+        this.cells = new byte[words * Long.BYTES + SPECIES.length()];
+        this.transposed = new byte[gridSize * gridSize + SPECIES.length()];
+        var lanes = new byte[SPECIES.length()];
+        var order = new int[SPECIES.length()];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            lanes[lane] = (byte) (lane < gridSize ? -1 : 0);
+            order[lane] = lane < gridSize ? gridSize - 1 - lane : lane;
+        }
+        this.lineLanes = ByteVector.fromArray(SPECIES, lanes, 0);
+        this.reverse = VectorShuffle.fromArray(SPECIES, order, 0);
+    }
+
+    @Override
+    public int move(BitBoardEngine engine, long[] words, boolean horizontal, boolean reversed) {
+        points = 0;
+        lastMoveWon = false;
+        MemorySegment.copy(MemorySegment.ofArray(words), ValueLayout.JAVA_LONG, 0,
+                MemorySegment.ofArray(cells), CELL_BYTES, 0, words.length);
+        var lines = cells;
+        if (horizontal) {
+            // rows are strided in the column-major grid; make them contiguous
+            for (int x = 0; x < gridSize; x++) {
+                for (int y = 0; y < gridSize; y++) {
+                    transposed[y * gridSize + x] = cells[x * gridSize + y];
+                }
+            }
+            lines = transposed;
+        }
+
+        var moved = false;
+        for (int line = 0; line < gridSize; line++) {
+            var before = ByteVector.fromArray(SPECIES, lines, line * gridSize);
+            if (reversed) {
+                before = before.rearrange(reverse);
+            }
+            before = before.and(lineLanes);
+
+            var after = mergeLine(before.compress(before.compare(VectorOperators.NE, 0)));
+
+            var changed = after.compare(VectorOperators.NE, before).toLong();
+            if (changed == 0) {
+                continue;
+            }
+            moved = true;
+            after.intoArray(result, 0);
+            for (; changed != 0; changed &= changed - 1) {
+                var progress = Long.numberOfTrailingZeros(changed);
+                var position = reversed ? gridSize - 1 - progress : progress;
+                var cell = horizontal ? position * gridSize + line : line * gridSize + position;
+                engine.setExponent(cell, result[progress]);
+            }
+        }
+        return moved ? points : BitBoardEngine.NO_MOVE;
+    }
+
+    @Override
+    public boolean lastMoveWon() {
+        return lastMoveWon;
+    }
+
+    /**
+     * Merges a line whose tiles are packed to the front, adding the points it earns.
+     */
+    private ByteVector mergeLine(ByteVector packed) {
+        var tiles = packed.compare(VectorOperators.NE, 0);
+        var equal = packed.compare(VectorOperators.EQ, packed.slice(1)).and(tiles).toLong();
+        if (equal == 0) {
+            return packed;
+        }
+
+        // in a run of equal tiles the first two merge, then the next two, and so on
+        var pairs = 0L;
+        while (equal != 0) {
+            var first = equal & -equal;
+            pairs |= first;
+            equal &= ~(first | first << 1);
+        }
+
+        var sums = packed.add((byte) 1, VectorMask.fromLong(SPECIES, pairs))
+                .blend((byte) 0, VectorMask.fromLong(SPECIES, pairs << 1));
+        sums.intoArray(merged, 0);
+        for (var mask = pairs; mask != 0; mask &= mask - 1) {
+            var mergedExponent = merged[Long.numberOfTrailingZeros(mask)];
+            points += 1 << mergedExponent;
+            lastMoveWon |= mergedExponent == BitBoardEngine.WIN_EXPONENT;
+        }
+        return sums.compress(sums.compare(VectorOperators.NE, 0));
+    }
+}